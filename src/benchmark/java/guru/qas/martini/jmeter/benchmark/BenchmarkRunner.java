@@ -0,0 +1,49 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark at 1, 8 and 64 threads, reporting throughput and allocations per operation.
+ * Standard JMH command line options, e.g. an include pattern, are honored.
+ */
+public class BenchmarkRunner {
+
+	private static final int[] THREADS = {1, 8, 64};
+	private static final String DEFAULT_INCLUDE = "guru\\.qas\\.martini\\..*Benchmark";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		for (int threads : THREADS) {
+			ChainedOptionsBuilder builder = new OptionsBuilder()
+				.parent(commandLine)
+				.threads(threads)
+				.addProfiler(GCProfiler.class);
+			if (commandLine.getIncludes().isEmpty()) {
+				builder.include(DEFAULT_INCLUDE);
+			}
+			new Runner(builder.build()).run();
+		}
+	}
+}
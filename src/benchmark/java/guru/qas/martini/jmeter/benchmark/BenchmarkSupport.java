@@ -0,0 +1,87 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.benchmark;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import com.google.common.collect.ImmutableList;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.Mixologist;
+import guru.qas.martini.jmeter.SamplerContext;
+import guru.qas.martini.jmeter.Variables;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Stands in for the JMeter engine and SpringPreProcessor so per-sample code may be measured in isolation.
+ * Benchmarks are expected to run from the project base directory.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class BenchmarkSupport {
+
+	public static final String JMETER_PROPERTIES = "src/test/jmeter/bin/jmeter.properties";
+	public static final String SPRING_CONFIGURATION = "martiniSuiteConfiguration.xml";
+
+	private static ClassPathXmlApplicationContext springContext;
+
+	private BenchmarkSupport() {
+	}
+
+	public static synchronized ConfigurableApplicationContext getSpringApplicationContext() {
+		if (null == springContext) {
+			JMeterUtils.loadJMeterProperties(JMETER_PROPERTIES);
+			springContext = new ClassPathXmlApplicationContext(SPRING_CONFIGURATION);
+		}
+		return springContext;
+	}
+
+	/**
+	 * Gives the calling thread fresh JMeterVariables holding the Spring context, as SpringPreProcessor would.
+	 *
+	 * @return the calling thread's JMeterContext
+	 */
+	public static JMeterContext setUpThread() {
+		ConfigurableApplicationContext springContext = getSpringApplicationContext();
+		JMeterContext threadContext = JMeterContextService.getContext();
+		threadContext.setVariables(new JMeterVariables());
+		Variables.set(springContext);
+		SamplerContext.set(springContext);
+		return threadContext;
+	}
+
+	/**
+	 * @return suite Martinis, excluding gated fixtures whose permits would throttle the benchmarks
+	 */
+	public static List<Martini> getMartinis() {
+		ConfigurableApplicationContext springContext = getSpringApplicationContext();
+		Mixologist mixologist = springContext.getBean(Mixologist.class);
+		List<Martini> martinis = mixologist.getMartinis().stream()
+			.filter(martini -> martini.getGates().isEmpty())
+			.collect(Collectors.toList());
+		checkState(!martinis.isEmpty(), "no Martini found");
+		return ImmutableList.copyOf(martinis);
+	}
+}
@@ -0,0 +1,174 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.benchmark;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.JMeter;
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.SearchByClass;
+
+import com.google.common.base.Splitter;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Runs the test plans in src/test/jmeter headless, inside this JVM, and fails when a plan produces no
+ * samples, when any sample fails, or when throughput drops below or per-sample overhead rises above
+ * configured limits. Steps are implemented by the no-op TestSteps, so measured time is that of JMeter plus
+ * this extension. Time is measured from the first sample's start to the last sample's end, excluding engine
+ * and Spring start-up and shutdown, so results do not depend on the loop count.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>jmeter.home: a JMeter installation, required for its bin/saveservice.properties</li>
+ * <li>martini.harness.plans: comma-separated .jmx files, default src/test/jmeter/MartiniSampler.jmx</li>
+ * <li>martini.harness.threads: threads per thread group, default 8</li>
+ * <li>martini.harness.loops: loops per thread, default 1000</li>
+ * <li>martini.harness.min.samples.per.second: fails below this throughput; 0, the default, disables the
+ * check, as achievable throughput depends on the machine</li>
+ * <li>martini.harness.max.overhead.micros: fails above this mean per-sample thread time; 0, the default,
+ * disables the check</li>
+ * </ul>
+ * Listeners configured in the plans are disabled so only the harness' own counting is measured.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PlanHarness {
+
+	protected static final String JMETER_PROPERTIES = BenchmarkSupport.JMETER_PROPERTIES;
+
+	protected final int threads;
+	protected final int loops;
+	protected final double minSamplesPerSecond;
+	protected final double maxOverheadMicros;
+
+	public PlanHarness(int threads, int loops, double minSamplesPerSecond, double maxOverheadMicros) {
+		checkArgument(threads > 0, "threads must be positive");
+		checkArgument(loops > 0, "loops must be positive");
+		this.threads = threads;
+		this.loops = loops;
+		this.minSamplesPerSecond = minSamplesPerSecond;
+		this.maxOverheadMicros = maxOverheadMicros;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String home = System.getProperty("jmeter.home");
+		checkState(null != home && !home.trim().isEmpty(), "system property jmeter.home must be set");
+		JMeterUtils.setJMeterHome(home.trim());
+		JMeterUtils.loadJMeterProperties(JMETER_PROPERTIES);
+		JMeterUtils.initLocale();
+		SaveService.loadProperties();
+
+		PlanHarness harness = new PlanHarness(
+			Integer.getInteger("martini.harness.threads", 8),
+			Integer.getInteger("martini.harness.loops", 1000),
+			Double.parseDouble(System.getProperty("martini.harness.min.samples.per.second", "0")),
+			Double.parseDouble(System.getProperty("martini.harness.max.overhead.micros", "0")));
+
+		String plans = System.getProperty("martini.harness.plans", "src/test/jmeter/MartiniSampler.jmx");
+		List<String> files = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(plans);
+
+		boolean passed = true;
+		for (String file : files) {
+			passed &= harness.run(new File(file));
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	public boolean run(File plan) throws Exception {
+		HashTree tree = SaveService.loadTree(plan);
+		disableListeners(tree);
+		JMeter.convertSubTree(tree);
+		configureThreadGroups(tree);
+
+		SampleCounter counter = new SampleCounter();
+		Object testPlan = tree.getArray()[0];
+		tree.add(testPlan, counter);
+
+		StandardJMeterEngine engine = new StandardJMeterEngine();
+		engine.configure(tree);
+		engine.run();
+
+		long elapsed = TimeUnit.MILLISECONDS.toNanos(Math.max(1, counter.getSamplingMillis()));
+		return report(plan, counter, elapsed);
+	}
+
+	protected void disableListeners(HashTree tree) {
+		SearchByClass<ResultCollector> search = new SearchByClass<>(ResultCollector.class);
+		tree.traverse(search);
+		search.getSearchResults().forEach(collector -> collector.setEnabled(false));
+	}
+
+	protected void configureThreadGroups(HashTree tree) {
+		SearchByClass<AbstractThreadGroup> search = new SearchByClass<>(AbstractThreadGroup.class);
+		tree.traverse(search);
+		Collection<AbstractThreadGroup> threadGroups = search.getSearchResults();
+		threadGroups.forEach(threadGroup -> {
+			threadGroup.setNumThreads(threads);
+			threadGroup.setProperty(ThreadGroup.RAMP_TIME, 0);
+			if (threadGroup.getSamplerController() instanceof LoopController) {
+				LoopController controller = (LoopController) threadGroup.getSamplerController();
+				controller.setLoops(loops);
+				controller.setContinueForever(false);
+			}
+		});
+	}
+
+	protected boolean report(File plan, SampleCounter counter, long elapsedNanos) {
+		long samples = counter.getSamples();
+		double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+		double samplesPerSecond = 0 == samples ? 0 : samples / seconds;
+		double overheadMicros = 0 == samples ? Double.MAX_VALUE :
+			TimeUnit.NANOSECONDS.toMicros(elapsedNanos) * (double) threads / samples;
+
+		System.out.println(String.format(Locale.ROOT,
+			"%s: %d samples (%d failed), %d threads, %.1f samples/s, %.1f µs per sample per thread",
+			plan, samples, counter.getFailures(), threads, samplesPerSecond, overheadMicros));
+
+		boolean passed = samples > 0;
+		if (0 == samples) {
+			System.out.println(String.format(Locale.ROOT, "%s: FAILED, no samples", plan));
+		}
+		if (counter.getFailures() > 0) {
+			System.out.println(String.format(Locale.ROOT,
+				"%s: FAILED, %d samples failed", plan, counter.getFailures()));
+			passed = false;
+		}
+		if (minSamplesPerSecond > 0 && samplesPerSecond < minSamplesPerSecond) {
+			System.out.println(String.format(Locale.ROOT,
+				"%s: FAILED, throughput below %.1f samples/s", plan, minSamplesPerSecond));
+			passed = false;
+		}
+		if (maxOverheadMicros > 0 && overheadMicros > maxOverheadMicros) {
+			System.out.println(String.format(Locale.ROOT,
+				"%s: FAILED, per-sample overhead above %.1f µs", plan, maxOverheadMicros));
+			passed = false;
+		}
+		return passed;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.benchmark;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+
+/**
+ * Counts samples across all threads without writing results, noting the earliest sample start and latest
+ * sample end so engine and Spring start-up can be excluded from measured time.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SampleCounter extends AbstractTestElement implements SampleListener, NoThreadClone {
+
+	private static final long serialVersionUID = 2238516279436612404L;
+
+	protected final transient LongAdder samples = new LongAdder();
+	protected final transient LongAdder failures = new LongAdder();
+	protected final transient LongAccumulator firstStart = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	protected final transient LongAccumulator lastEnd = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+	@Override
+	public void sampleOccurred(SampleEvent event) {
+		SampleResult result = event.getResult();
+		samples.increment();
+		firstStart.accumulate(result.getStartTime());
+		lastEnd.accumulate(result.getEndTime());
+		if (!result.isSuccessful()) {
+			failures.increment();
+		}
+	}
+
+	@Override
+	public void sampleStarted(SampleEvent event) {
+	}
+
+	@Override
+	public void sampleStopped(SampleEvent event) {
+	}
+
+	public long getSamples() {
+		return samples.sum();
+	}
+
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	/**
+	 * @return milliseconds from the first sample's start to the last sample's end, 0 if none occurred
+	 */
+	public long getSamplingMillis() {
+		return 0 == getSamples() ? 0 : Math.max(0, lastEnd.get() - firstStart.get());
+	}
+}
@@ -0,0 +1,95 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Striped;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.jmeter.benchmark.BenchmarkSupport;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+
+/**
+ * Measures hand-out of Martinis from one controller shared by every benchmark thread, as the
+ * clones of a single MartiniFilterController share their index and locks.
+ */
+@SuppressWarnings("WeakerAccess")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MartiniFilterControllerBenchmark {
+
+	protected static final int CATALOGUE_SIZE = 10_000;
+
+	protected MartiniFilterController controller;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		@Setup
+		public void setUp() {
+			BenchmarkSupport.setUpThread();
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		List<Martini> martinis = BenchmarkSupport.getMartinis();
+		ImmutableList.Builder<Martini> builder = ImmutableList.builder();
+		for (int i = 0; i < CATALOGUE_SIZE; i++) {
+			builder.add(martinis.get(i % martinis.size()));
+		}
+
+		controller = new MartiniFilterController();
+		controller.martinis = builder.build();
+		controller.index = new ConcurrentHashMap<>();
+		controller.striped = Striped.lock(10);
+
+		MetricsRegistry metrics = BenchmarkSupport.getSpringApplicationContext().getBean(MetricsRegistry.class);
+		controller.dispatchedCounter = metrics.counter("benchmark.dispatched");
+		controller.interruptedCounter = metrics.counter("benchmark.interrupted");
+		controller.lockWaitTimer = metrics.timer("benchmark.lock.wait");
+		controller.metrics = metrics;
+	}
+
+	@Benchmark
+	public Martini getNextMartini(ThreadState state) {
+		Martini martini = controller.getNextMartini();
+		if (null == martini) {
+			controller.index.clear(); // Catalogue exhausted; start the iteration over.
+		}
+		return martini;
+	}
+}
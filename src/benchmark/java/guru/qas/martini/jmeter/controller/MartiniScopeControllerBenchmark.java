@@ -0,0 +1,94 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.benchmark.BenchmarkSupport;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.result.MartiniResultFactory;
+import guru.qas.martini.result.MartiniResult;
+
+/**
+ * Measures one scenario's begin/end bookkeeping, excluding event listeners.
+ */
+@SuppressWarnings("WeakerAccess")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MartiniScopeControllerBenchmark {
+
+	protected MartiniScopeController controller;
+
+	protected static class NoOpControllerBean implements MartiniScopeControllerBean {
+
+		@Override
+		public void publishBeforeScenario(MartiniResult result) {
+		}
+
+		@Override
+		public void publishAfterScenario(@Nullable MartiniResult result) {
+		}
+
+		@Override
+		public void destroy() {
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.setUpThread();
+		Martini martini = BenchmarkSupport.getMartinis().get(0);
+		Variables.set(martini);
+
+		ConfigurableApplicationContext springContext = BenchmarkSupport.getSpringApplicationContext();
+		controller = new MartiniScopeController();
+		controller.set(new NoOpControllerBean());
+		controller.set(springContext.getBean(MartiniResultFactory.class));
+		MetricsRegistry metrics = springContext.getBean(MetricsRegistry.class);
+		controller.set(metrics);
+		controller.begunCounter = metrics.counter("benchmark.begun");
+		controller.endedCounter = metrics.counter("benchmark.ended");
+	}
+
+	@Benchmark
+	public MartiniResult beginAndEndScenario() {
+		controller.beginScenario();
+		MartiniResult result = controller.martiniResult;
+		controller.endScenario();
+		return result;
+	}
+}
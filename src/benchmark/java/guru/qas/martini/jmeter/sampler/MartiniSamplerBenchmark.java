@@ -0,0 +1,76 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.sampler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.jmeter.SamplerContext;
+import guru.qas.martini.jmeter.benchmark.BenchmarkSupport;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.metrics.StepCosts;
+
+/**
+ * Measures sampling of a scenario whose steps, implemented by TestSteps, do nothing, with and without step
+ * CPU time and allocation accounting.
+ */
+@SuppressWarnings("WeakerAccess")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MartiniSamplerBenchmark {
+
+	@Param({"false", "true"})
+	public boolean stepCostsRecorded;
+
+	protected MartiniSampler sampler;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.setUpThread();
+		Martini martini = BenchmarkSupport.getMartinis().get(0);
+		SamplerContext.set(martini);
+		sampler = new MartiniSampler();
+		if (stepCostsRecorded) {
+			MetricsRegistry metrics = BenchmarkSupport.getSpringApplicationContext().getBean(MetricsRegistry.class);
+			sampler.stepCosts = new StepCosts(metrics);
+		}
+	}
+
+	@Benchmark
+	public SampleResult completeSample() throws Exception {
+		SampleResult result = new SampleResult();
+		sampler.completeSample(result);
+		return result;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares invoking a short step method through a StepInvoker compiled by DefaultStepInvokers with invoking
+ * it through Method.invoke, using the same bean and arguments.
+ */
+@SuppressWarnings("WeakerAccess")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepInvokersBenchmark {
+
+	protected Steps bean;
+	protected Object[] arguments;
+	protected Method method;
+	protected StepInvoker invoker;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		bean = new Steps();
+		arguments = new Object[]{"user", 42};
+		method = Steps.class.getMethod("givenAUserWithAge", String.class, int.class);
+		invoker = new DefaultStepInvokers().get(method);
+	}
+
+	@Benchmark
+	public Object stepInvoker() throws Exception {
+		return invoker.invoke(bean, arguments);
+	}
+
+	@Benchmark
+	public Object methodInvoke() throws Exception {
+		return method.invoke(bean, arguments);
+	}
+
+	public static class Steps {
+
+		public int givenAUserWithAge(String name, int age) {
+			return name.length() + age;
+		}
+	}
+}
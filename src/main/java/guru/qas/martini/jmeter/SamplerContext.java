@@ -17,6 +17,7 @@ limitations under the License.
 package guru.qas.martini.jmeter;
 
 import java.util.Map;
+import java.util.Optional;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -28,6 +29,8 @@ import org.springframework.context.ConfigurableApplicationContext;
 import guru.qas.martini.Assertions;
 import guru.qas.martini.Martini;
 import guru.qas.martini.event.SuiteIdentifier;
+import guru.qas.martini.jmeter.controller.MartiniBatchSource;
+import guru.qas.martini.jmeter.controller.MartiniScenarioScope;
 import guru.qas.martini.result.MartiniResult;
 
 import static guru.qas.martini.jmeter.Variables.*;
@@ -54,6 +57,21 @@ public abstract class SamplerContext {
 		set(MARTINI_RESULT, r);
 	}
 
+	public static void set(@Nullable MartiniBatchSource s) {
+		set(MARTINI_BATCH_SOURCE, s);
+	}
+
+	public static void set(@Nullable MartiniScenarioScope s) {
+		set(MARTINI_SCENARIO_SCOPE, s);
+	}
+
+	/**
+	 * @param timestamp epoch milliseconds at which the next sample was scheduled to start
+	 */
+	public static void setIntendedStart(long timestamp) {
+		set(INTENDED_START, timestamp);
+	}
+
 	protected static void set(String key, Object value) {
 		Map<String, Object> samplerContext = getSamplerContext();
 		if (null == value) {
@@ -79,6 +97,26 @@ public abstract class SamplerContext {
 		return getValue(SPRING_APPLICATION_CONTEXT, ConfigurableApplicationContext.class);
 	}
 
+	public static Optional<Martini> getOptionalMartini() {
+		return getOptionalValue(MARTINI, Martini.class);
+	}
+
+	public static Optional<MartiniResult> getOptionalMartiniResult() {
+		return getOptionalValue(MARTINI_RESULT, MartiniResult.class);
+	}
+
+	public static Optional<Long> getOptionalIntendedStart() {
+		return getOptionalValue(INTENDED_START, Long.class);
+	}
+
+	public static Optional<MartiniBatchSource> getOptionalBatchSource() {
+		return getOptionalValue(MARTINI_BATCH_SOURCE, MartiniBatchSource.class);
+	}
+
+	public static Optional<MartiniScenarioScope> getOptionalScenarioScope() {
+		return getOptionalValue(MARTINI_SCENARIO_SCOPE, MartiniScenarioScope.class);
+	}
+
 	protected static <T> T getValue(String key, Class<T> type) {
 		Map<String, Object> samplerContext = getSamplerContext();
 		Assertions assertions = new Assertions(SamplerContext.class.getSimpleName());
@@ -88,4 +126,10 @@ public abstract class SamplerContext {
 		assertions.assertIsInstance(key, o, type);
 		return type.cast(o);
 	}
-}
+
+	protected static <T> Optional<T> getOptionalValue(String key, Class<T> type) {
+		Map<String, Object> samplerContext = getSamplerContext();
+		Object o = samplerContext.get(key);
+		return Optional.ofNullable(o).filter(type::isInstance).map(type::cast);
+	}
+}
\ No newline at end of file
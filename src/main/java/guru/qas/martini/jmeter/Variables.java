@@ -32,6 +32,10 @@ import com.google.common.collect.ImmutableMap;
 import guru.qas.martini.Assertions;
 import guru.qas.martini.Martini;
 import guru.qas.martini.event.SuiteIdentifier;
+import guru.qas.martini.jmeter.controller.MartiniBatchSource;
+import guru.qas.martini.jmeter.controller.MartiniScenarioScope;
+import guru.qas.martini.jmeter.resource.ThreadResources;
+import guru.qas.martini.jmeter.step.StepMemo;
 import guru.qas.martini.result.MartiniResult;
 
 @SuppressWarnings("WeakerAccess")
@@ -43,6 +47,11 @@ public abstract class Variables {
 	public static final String SPRING_APPLICATION_CONTEXT = ConfigurableApplicationContext.class.getName();
 	public static final String SUITE_IDENTIFIER = SuiteIdentifier.class.getName();
 	public static final String MARTINI_RESULT = MartiniResult.class.getName();
+	public static final String INTENDED_START = "martini.intended.start";
+	public static final String STEP_MEMO = StepMemo.class.getName();
+	public static final String THREAD_RESOURCES = ThreadResources.class.getName();
+	public static final String MARTINI_BATCH_SOURCE = MartiniBatchSource.class.getName();
+	public static final String MARTINI_SCENARIO_SCOPE = MartiniScenarioScope.class.getName();
 
 	private Variables() {
 	}
@@ -63,6 +72,14 @@ public abstract class Variables {
 		set(MARTINI_RESULT, r);
 	}
 
+	/**
+	 * @param timestamp epoch milliseconds at which the current sample was scheduled to start, stored as a
+	 *                  String so it may be listed in sample_variables
+	 */
+	public static void setIntendedStart(@Nullable Long timestamp) {
+		set(INTENDED_START, null == timestamp ? null : String.valueOf(timestamp));
+	}
+
 	protected static void set(String key, @Nullable Object value) {
 		JMeterVariables variables = getVariables();
 		if (null == value) {
@@ -88,10 +105,65 @@ public abstract class Variables {
 		return getVariable(SPRING_APPLICATION_CONTEXT, ConfigurableApplicationContext.class);
 	}
 
+	public static Optional<ConfigurableApplicationContext> getOptionalSpringApplicationContext() {
+		return getOptionalVariable(SPRING_APPLICATION_CONTEXT, ConfigurableApplicationContext.class);
+	}
+
 	public static Optional<Martini> getOptionalMartini() {
 		return getOptionalVariable(MARTINI, Martini.class);
 	}
 
+	/**
+	 * @return this thread's StepMemo, created on first use and kept until the thread ends
+	 */
+	@Nonnull
+	public static StepMemo getStepMemo() {
+		JMeterVariables variables = getVariables();
+		Object o = variables.getObject(STEP_MEMO);
+		StepMemo memo;
+		if (o instanceof StepMemo) {
+			memo = (StepMemo) o;
+		}
+		else {
+			memo = new StepMemo();
+			variables.putObject(STEP_MEMO, memo);
+		}
+		return memo;
+	}
+
+	/**
+	 * @return this thread's ThreadResources, created on first use
+	 */
+	@Nonnull
+	public static ThreadResources getThreadResources() {
+		JMeterVariables variables = getVariables();
+		Object o = variables.getObject(THREAD_RESOURCES);
+		ThreadResources resources;
+		if (o instanceof ThreadResources) {
+			resources = (ThreadResources) o;
+		}
+		else {
+			resources = new ThreadResources();
+			variables.putObject(THREAD_RESOURCES, resources);
+		}
+		return resources;
+	}
+
+	/**
+	 * Closes any resources opened by this thread unless an executing scenario still holds them; safe to call
+	 * more than once. Closed resources are kept so that they are not reopened.
+	 */
+	public static void closeThreadResources() {
+		JMeterVariables variables = getVariables();
+		Object o = null == variables ? null : variables.getObject(THREAD_RESOURCES);
+		if (o instanceof ThreadResources) {
+			ThreadResources resources = (ThreadResources) o;
+			if (!resources.isHeld() && !resources.isClosed()) {
+				resources.close();
+			}
+		}
+	}
+
 	@Nonnull
 	protected static <T> T getVariable(String key, Class<T> type) {
 		Map<String, Object> index = getAsMap();
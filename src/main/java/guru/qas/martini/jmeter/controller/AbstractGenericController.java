@@ -19,6 +19,8 @@ package guru.qas.martini.jmeter.controller;
 import java.io.Serializable;
 import java.util.function.Function;
 
+import javax.management.ObjectName;
+
 import org.apache.jmeter.control.GenericController;
 import org.apache.jmeter.testbeans.BeanInfoSupport;
 import org.apache.jmeter.testbeans.TestBean;
@@ -32,6 +34,10 @@ import guru.qas.martini.Messages;
 import guru.qas.martini.ResourceBundleMessageFunction;
 import guru.qas.martini.jmeter.DefaultExceptionReporter;
 import guru.qas.martini.jmeter.ExceptionReporter;
+import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.metrics.MBeanRegistrar;
+import guru.qas.martini.jmeter.metrics.MetricNames;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
 
 import static guru.qas.martini.jmeter.controller.AbstractGenericControllerMessages.*;
 
@@ -47,6 +53,7 @@ public abstract class AbstractGenericController extends GenericController
 	protected transient LocLogger logger;
 	protected transient String host;
 	protected transient ExceptionReporter reporter;
+	protected transient ObjectName objectName;
 
 	public AbstractGenericController() {
 		super();
@@ -74,6 +81,7 @@ public abstract class AbstractGenericController extends GenericController
 			completeSetup();
 		}
 		catch (Exception e) {
+			recordSetUpFailure();
 			JMeterContextService.endTest();
 			if (null == reporter) {
 				reporter = new DefaultExceptionReporter();
@@ -86,6 +94,18 @@ public abstract class AbstractGenericController extends GenericController
 	}
 
 
+	protected void recordSetUpFailure() {
+		try {
+			Variables.getOptionalSpringApplicationContext().ifPresent(springContext -> {
+				MetricsRegistry metrics = springContext.getBean(MetricsRegistry.class);
+				metrics.counter(MetricNames.SETUP_FAILED).increment();
+			});
+		}
+		catch (Exception ignored) {
+			// Metrics are best-effort while start up is failing.
+		}
+	}
+
 	protected void setUpLogger() {
 		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
 		LocLoggerFactory loggerFactory = new LocLoggerFactory(messageConveyor);
@@ -108,6 +128,33 @@ public abstract class AbstractGenericController extends GenericController
 
 	protected abstract void completeSetup() throws Exception;
 
+	/**
+	 * Publishes a read-only view of this controller via JMX until tear down.
+	 *
+	 * @param view   MXBean implementation
+	 * @param mxBean MXBean interface
+	 * @param <T>    MXBean interface type
+	 */
+	protected <T> void registerMBean(T view, Class<T> mxBean) {
+		try {
+			objectName = MBeanRegistrar.register(view, mxBean, getClass().getSimpleName(), getName());
+		}
+		catch (Exception e) {
+			logger.warn(MBEAN_REGISTRATION_FAILED, getName(), e);
+		}
+	}
+
+	protected void unregisterMBean() {
+		ObjectName registered = objectName;
+		objectName = null;
+		try {
+			MBeanRegistrar.unregister(registered);
+		}
+		catch (Exception e) {
+			logger.warn(MBEAN_UNREGISTRATION_FAILED, getName(), e);
+		}
+	}
+
 	@Override
 	public Object clone() {
 		Object o = super.clone();
@@ -138,6 +185,7 @@ public abstract class AbstractGenericController extends GenericController
 			reporter.logException(ERROR_IN_TEAR_DOWN, e, getName());
 		}
 
+		unregisterMBean();
 		logger = null;
 		beanInfoSupport = null;
 		reporter = null;
@@ -26,5 +26,7 @@ public enum AbstractGenericControllerMessages {
 	STARTING,
 	ERROR_IN_START_UP,
 	GUI_ERROR_TITLE,
-	ERROR_IN_TEAR_DOWN
+	ERROR_IN_TEAR_DOWN,
+	MBEAN_REGISTRATION_FAILED,
+	MBEAN_UNREGISTRATION_FAILED
 }
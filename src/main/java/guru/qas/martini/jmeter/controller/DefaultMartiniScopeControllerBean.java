@@ -16,88 +16,69 @@ limitations under the License.
 
 package guru.qas.martini.jmeter.controller;
 
-
 import javax.annotation.Nullable;
 
-import org.slf4j.cal10n.LocLogger;
-import org.slf4j.cal10n.LocLoggerFactory;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Configurable;
 
-import ch.qos.cal10n.IMessageConveyor;
-import guru.qas.martini.Messages;
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.metrics.Timer;
+import guru.qas.martini.jmeter.result.MartiniResultSink;
 import guru.qas.martini.result.MartiniResult;
 import guru.qas.martini.runtime.event.EventManager;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static guru.qas.martini.jmeter.controller.DefaultMartiniScopeControllerBeanMessages.*;
+import static guru.qas.martini.jmeter.metrics.MetricNames.*;
 
+/**
+ * Forwards scenario events to the EventManager and completed results to the MartiniResultSink.
+ * Pairing of before and after events is tracked by each thread's MartiniScopeController.
+ */
 @SuppressWarnings("WeakerAccess")
 @Configurable
-public class DefaultMartiniScopeControllerBean
-	implements InitializingBean, MartiniScopeControllerBean {
+public class DefaultMartiniScopeControllerBean implements MartiniScopeControllerBean {
 
 	private final EventManager eventManager;
-	private final ThreadLocal<MartiniResult> threadLocal;
-	private LocLogger logger;
-
-	protected DefaultMartiniScopeControllerBean(EventManager eventManager) {
+	private final MartiniResultSink sink;
+	private final Counter beginCounter;
+	private final Counter endCounter;
+	private final Timer beforePublishTimer;
+	private final Timer afterPublishTimer;
+
+	protected DefaultMartiniScopeControllerBean(
+		EventManager eventManager,
+		MartiniResultSink sink,
+		MetricsRegistry metrics
+	) {
 		this.eventManager = eventManager;
-		threadLocal = new ThreadLocal<>();
-	}
-
-	@Override
-	public void afterPropertiesSet() {
-		setUpLogger();
-	}
-
-	protected void setUpLogger() {
-		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
-		LocLoggerFactory factory = new LocLoggerFactory(messageConveyor);
-		logger = factory.getLocLogger(this.getClass());
+		this.sink = sink;
+		beginCounter = metrics.counter(SCENARIO_BEGIN);
+		endCounter = metrics.counter(SCENARIO_END);
+		beforePublishTimer = metrics.timer(BEFORE_SCENARIO_PUBLISH);
+		afterPublishTimer = metrics.timer(AFTER_SCENARIO_PUBLISH);
 	}
 
 	@Override
 	public void publishBeforeScenario(MartiniResult result) {
 		checkNotNull(result, "null MartiniResult");
-
-		MartiniResult previous = threadLocal.get();
-		if (result.equals(previous)) {
-			logger.warn(BEFORE_EVENT_ALREADY_PUBLISHED, result);
-		}
-		else {
-			logger.debug(PUBLISHING_BEFORE_EVENT, result);
-			threadLocal.set(result);
-			eventManager.publishBeforeScenario(this, result);
-		}
+		beginCounter.increment();
+		long start = System.nanoTime();
+		eventManager.publishBeforeScenario(this, result);
+		beforePublishTimer.recordNanos(System.nanoTime() - start);
 	}
 
 	@Override
 	public void publishAfterScenario(@Nullable MartiniResult result) {
-
-		MartiniResult previous = threadLocal.get();
-		threadLocal.remove();
-
-		if (null != previous && previous.equals(result)) {
-			logger.debug(PUBLISHING_AFTER_EVENT, result);
-			eventManager.publishAfterScenario(this, result);
-		}
-		else if (null != previous && null != result && !previous.equals(result)) {
-			logger.warn(AFTER_EVENT_NOT_PUBLISHED, previous);
-			logger.debug(PUBLISHING_AFTER_EVENT, previous);
-			eventManager.publishAfterScenario(this, previous);
-			logger.debug(PUBLISHING_AFTER_EVENT, result);
-			eventManager.publishAfterScenario(this, result);
-		}
-		else if (null == previous && null != result) {
-			logger.warn(BEFORE_EVENT_NOT_PUBLISHED, result);
+		if (null != result) {
+			endCounter.increment();
+			long start = System.nanoTime();
 			eventManager.publishAfterScenario(this, result);
+			afterPublishTimer.recordNanos(System.nanoTime() - start);
+			sink.accept(result);
 		}
 	}
 
 	@Override
 	public void destroy() {
-		MartiniResult current = threadLocal.get();
-		publishAfterScenario(current);
 	}
 }
@@ -0,0 +1,37 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.Optional;
+
+import guru.qas.martini.Martini;
+
+/**
+ * Supplies further Martinis to a sampler running several back to back within one sample. Offered through the
+ * SamplerContext by the controller dispatching Martinis to the sampler.
+ */
+public interface MartiniBatchSource {
+
+	/**
+	 * Releases the current Martini and dispatches the next as though a new iteration of the controller had
+	 * begun, waiting where necessary for its gates. The next Martini replaces the current one in both
+	 * JMeterVariables and the SamplerContext.
+	 *
+	 * @return next Martini, or empty when the controller has none left this iteration
+	 */
+	Optional<Martini> nextInBatch();
+}
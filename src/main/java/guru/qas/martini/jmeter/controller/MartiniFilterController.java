@@ -18,15 +18,22 @@ package guru.qas.martini.jmeter.controller;
 
 import java.io.Serializable;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -39,29 +46,51 @@ import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.testbeans.BeanInfoSupport;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testelement.TestStateListener;
+import org.apache.jmeter.testelement.ThreadListener;
 import org.springframework.context.ApplicationContext;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Striped;
 
 import guru.qas.martini.Martini;
 import guru.qas.martini.Messages;
 import guru.qas.martini.Mixologist;
+import guru.qas.martini.gate.MartiniGate;
 import guru.qas.martini.jmeter.SamplerContext;
 import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.filter.MartiniFilterIndex;
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.MetricNames;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.metrics.Timer;
+import guru.qas.martini.jmeter.step.StepArguments;
+import guru.qas.martini.jmeter.step.StepInvokers;
 
 import static com.google.common.base.Preconditions.*;
 import static guru.qas.martini.jmeter.controller.MartiniFilterControllerMessages.*;
 
 /**
  * Selects Martinis to execute, iterating over all matching Martinis per iteration.
+ * <p>
+ * When a partition mode other than "none" is selected, each engine executes only its slice of the
+ * matching Martinis, identified by partition index and partition count. Both default to JMeter
+ * properties martini.partition.index and martini.partition.count so each remote engine may be started
+ * with its own -J values.
+ * <p>
+ * Martinis carrying MartiniGates are admitted only when every one of their gates can be entered without
+ * waiting. A Martini whose gates are full is deferred and the next runnable Martini dispatched instead;
+ * deferred Martinis are retried first on later dispatches. Only when every remaining Martini of the
+ * iteration is gated does the thread back off and retry. Permits are held from dispatch until the thread
+ * moves on to its next Martini or finishes, including when stopped. Skips and waits are counted per gate.
  */
 @SuppressWarnings("WeakerAccess")
 public class MartiniFilterController extends AbstractGenericController
-	implements Serializable, Cloneable, TestBean, TestStateListener, LoopIterationListener, SampleMonitor {
+	implements Serializable, Cloneable, TestBean, TestStateListener, ThreadListener, LoopIterationListener,
+	SampleMonitor, MartiniBatchSource {
 
 	private static final long serialVersionUID = 4631820992406669501L;
 
@@ -71,6 +100,16 @@ public class MartiniFilterController extends AbstractGenericController
 	protected static final String PROPERTY_SPEL_FILTER = "spelFilter";
 	protected static final String PROPERTY_SHUFFLE = "shuffle";
 	protected static final String PROPERTY_RANDOM_SEED = "randomSeed";
+	protected static final String PROPERTY_PARTITION_MODE = "partitionMode";
+	protected static final String PROPERTY_PARTITION_INDEX = "partitionIndex";
+	protected static final String PROPERTY_PARTITION_COUNT = "partitionCount";
+
+	protected static final String PARTITION_MODE_NONE = "none";
+	protected static final String PARTITION_MODE_HASH = "hash";
+	protected static final String PARTITION_MODE_ROUND_ROBIN = "roundRobin";
+
+	protected static final long GATE_BACKOFF_MIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	protected static final long GATE_BACKOFF_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
 
 	// Serialized.
 	protected boolean noMartiniFoundFatal;
@@ -78,14 +117,23 @@ public class MartiniFilterController extends AbstractGenericController
 	protected String spelFilter;
 	protected boolean shuffle;
 	protected Long randomSeed;
+	protected String partitionMode;
+	protected String partitionIndex;
+	protected String partitionCount;
 
 	// Shared
 	protected transient ImmutableList<Martini> martinis;
-	protected transient volatile ConcurrentHashMap<Integer, Iterator<Martini>> index;
+	protected transient volatile ConcurrentHashMap<Integer, MartiniCursor> index;
 	protected transient volatile Striped<Lock> striped;
+	protected transient Counter dispatchedCounter;
+	protected transient Counter interruptedCounter;
+	protected transient Timer lockWaitTimer;
+	protected transient MetricsRegistry metrics;
 
 	// Per-thread.
 	protected transient Martini martini;
+	protected transient List<MartiniGate> enteredGates;
+	protected transient Set<String> rejectingGates;
 
 	public boolean isNoMartiniFoundFatal() {
 		return noMartiniFoundFatal;
@@ -132,6 +180,33 @@ public class MartiniFilterController extends AbstractGenericController
 		this.shuffle = b;
 	}
 
+	public String getPartitionMode() {
+		return partitionMode;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setPartitionMode(String s) {
+		partitionMode = null == s ? PARTITION_MODE_NONE : s.trim();
+	}
+
+	public String getPartitionIndex() {
+		return partitionIndex;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setPartitionIndex(String s) {
+		partitionIndex = null == s ? "" : s.trim();
+	}
+
+	public String getPartitionCount() {
+		return partitionCount;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setPartitionCount(String s) {
+		partitionCount = null == s ? "" : s.trim();
+	}
+
 	public MartiniFilterController() {
 		super();
 	}
@@ -145,14 +220,25 @@ public class MartiniFilterController extends AbstractGenericController
 	protected void completeSetup() {
 		index = new ConcurrentHashMap<>();
 		striped = Striped.lock(10);
+		setUpMetrics();
 
 		Collection<Martini> martinis = getMartinis();
 		checkState(!isNoMartiniFoundFatal() || !martinis.isEmpty(), Messages.getMessage(NO_MARTINI_FOUND));
 
 		completeSetup(martinis);
-		if (martinis.isEmpty()) {
+		if (this.martinis.isEmpty()) {
 			super.setDone(true);
 		}
+		registerMBean(new MartiniFilterControllerView(this), MartiniFilterControllerMXBean.class);
+	}
+
+	protected void setUpMetrics() {
+		ApplicationContext springContext = Variables.getSpringApplicationContext();
+		metrics = springContext.getBean(MetricsRegistry.class);
+		String name = getName();
+		dispatchedCounter = metrics.counter(MetricNames.getFilterDispatched(name));
+		interruptedCounter = metrics.counter(MetricNames.getFilterInterrupted(name));
+		lockWaitTimer = metrics.timer(MetricNames.getFilterLockWait(name));
 	}
 
 	protected Collection<Martini> getMartinis() {
@@ -172,8 +258,9 @@ public class MartiniFilterController extends AbstractGenericController
 
 	protected Collection<Martini> getFilteredMartinis() {
 		String spelFilter = getSpelFilter().trim();
-		Mixologist mixologist = getMixologist();
-		return mixologist.getMartinis(spelFilter);
+		ApplicationContext springContext = Variables.getSpringApplicationContext();
+		MartiniFilterIndex index = springContext.getBean(MartiniFilterIndex.class);
+		return index.getMartinis(spelFilter);
 	}
 
 	protected void completeSetup(Collection<Martini> martinis) {
@@ -183,17 +270,81 @@ public class MartiniFilterController extends AbstractGenericController
 			throw new IllegalStateException(message);
 		}
 
+		List<Martini> partition = getPartition(martinis);
+
 		ImmutableList.Builder<Martini> builder = ImmutableList.builder();
 		if (isShuffle()) {
 			Random random = getRandom();
-			List<Martini> copy = Lists.newArrayList(martinis);
+			List<Martini> copy = Lists.newArrayList(partition);
 			Collections.shuffle(copy, random);
 			builder.addAll(copy);
 		}
 		else {
-			builder.addAll(martinis);
+			builder.addAll(partition);
 		}
 		this.martinis = builder.build();
+		prepareSteps(this.martinis);
+	}
+
+	/**
+	 * Compiles step invokers and binds immutable step arguments once, ahead of the first dispatch.
+	 */
+	protected void prepareSteps(Collection<Martini> martinis) {
+		ApplicationContext springContext = Variables.getSpringApplicationContext();
+		StepInvokers stepInvokers = springContext.getBean(StepInvokers.class);
+		stepInvokers.compile(martinis);
+		StepArguments stepArguments = springContext.getBean(StepArguments.class);
+		stepArguments.bind(martinis);
+	}
+
+	/**
+	 * Selects this engine's deterministic slice of the Martinis when partitioning is enabled, allowing
+	 * a catalogue to be spread across distributed engines without duplicate work. Partitioning is
+	 * applied before shuffling so every engine agrees on the slices regardless of random seed.
+	 *
+	 * @param martinis all filtered Martinis, in Mixologist order
+	 * @return Martinis assigned to this engine
+	 */
+	protected List<Martini> getPartition(Collection<Martini> martinis) {
+		String mode = null == partitionMode || partitionMode.isEmpty() ? PARTITION_MODE_NONE : partitionMode;
+		if (PARTITION_MODE_NONE.equals(mode)) {
+			return ImmutableList.copyOf(martinis);
+		}
+
+		int count = parsePartitionValue(PROPERTY_PARTITION_COUNT, getPartitionCount());
+		int index = parsePartitionValue(PROPERTY_PARTITION_INDEX, getPartitionIndex());
+		checkArgument(count > 0 && index < count, Messages.getMessage(INVALID_PARTITION, index, count));
+
+		List<Martini> partition;
+		switch (mode) {
+			case PARTITION_MODE_HASH:
+				partition = martinis.stream()
+					.filter(martini -> Math.floorMod(martini.getId().hashCode(), count) == index)
+					.collect(Collectors.toList());
+				break;
+			case PARTITION_MODE_ROUND_ROBIN:
+				List<Martini> ordered = ImmutableList.copyOf(martinis);
+				partition = Lists.newArrayListWithExpectedSize(ordered.size() / count + 1);
+				for (int i = index; i < ordered.size(); i += count) {
+					partition.add(ordered.get(i));
+				}
+				break;
+			default:
+				throw new IllegalArgumentException(Messages.getMessage(INVALID_PARTITION_MODE, mode));
+		}
+		return partition;
+	}
+
+	protected int parsePartitionValue(String property, @Nullable String value) {
+		String trimmed = null == value ? "" : value.trim();
+		try {
+			int parsed = Integer.parseInt(trimmed);
+			checkArgument(parsed >= 0, Messages.getMessage(INVALID_PARTITION_VALUE, property, trimmed));
+			return parsed;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.getMessage(INVALID_PARTITION_VALUE, property, trimmed), e);
+		}
 	}
 
 	protected Random getRandom() {
@@ -215,6 +366,10 @@ public class MartiniFilterController extends AbstractGenericController
 		MartiniFilterController clone = MartiniFilterController.class.cast(o);
 		clone.index = index;
 		clone.striped = striped;
+		clone.dispatchedCounter = dispatchedCounter;
+		clone.interruptedCounter = interruptedCounter;
+		clone.lockWaitTimer = lockWaitTimer;
+		clone.metrics = metrics;
 		clone.martinis = martinis;
 		return clone;
 	}
@@ -243,21 +398,39 @@ public class MartiniFilterController extends AbstractGenericController
 	}
 
 	protected Martini getNextMartini() {
+		leaveGates();
+		getRejectingGates().clear();
 		int iteration = Variables.getIteration();
-		Iterator<Martini> iterator = index.computeIfAbsent(iteration, i -> martinis.iterator());
+		MartiniCursor cursor = index.computeIfAbsent(iteration, i -> new MartiniCursor(martinis));
 
 		Lock lock = striped.get(iteration);
 		Martini martini = null;
 		try {
-			lock.lockInterruptibly();
-			try {
-				martini = iterator.hasNext() ? iterator.next() : null;
+			long backoff = GATE_BACKOFF_MIN_NANOS;
+			boolean exhausted = false;
+			while (null == martini && !exhausted) {
+				long waitStart = System.nanoTime();
+				lock.lockInterruptibly();
+				lockWaitTimer.recordNanos(System.nanoTime() - waitStart);
+				try {
+					martini = cursor.next(this::enterGates);
+					exhausted = cursor.isExhausted();
+				}
+				finally {
+					lock.unlock();
+				}
+
+				if (null == martini && !exhausted) {
+					awaitGates(backoff);
+					backoff = Math.min(backoff * 2, GATE_BACKOFF_MAX_NANOS);
+				}
 			}
-			finally {
-				lock.unlock();
+			if (null != martini) {
+				dispatchedCounter.increment();
 			}
 		}
 		catch (InterruptedException e) {
+			interruptedCounter.increment();
 			String stacktrace = Throwables.getStackTraceAsString(e);
 			logger.warn(INTERRUPTED, getName(), '\n' + stacktrace);
 			setDone(true);
@@ -265,20 +438,167 @@ public class MartiniFilterController extends AbstractGenericController
 		return martini;
 	}
 
+	/**
+	 * Enters each of the Martini's gates without waiting, backing out of those entered if any is full.
+	 *
+	 * @return true if all gates were entered
+	 */
+	protected boolean enterGates(Martini martini) {
+		Collection<MartiniGate> gates = martini.getGates();
+		boolean entered = true;
+		if (!gates.isEmpty()) {
+			List<MartiniGate> held = Lists.newArrayListWithCapacity(gates.size());
+			for (Iterator<MartiniGate> i = gates.iterator(); entered && i.hasNext(); ) {
+				MartiniGate gate = i.next();
+				if (gate.enter()) {
+					held.add(gate);
+				}
+				else {
+					entered = false;
+					held.forEach(MartiniGate::leave);
+					metrics.counter(MetricNames.getGateSkipped(gate.getName())).increment();
+					getRejectingGates().add(gate.getName());
+				}
+			}
+			enteredGates = entered ? held : null;
+		}
+		return entered;
+	}
+
+	protected Set<String> getRejectingGates() {
+		if (null == rejectingGates) {
+			rejectingGates = Sets.newHashSet();
+		}
+		return rejectingGates;
+	}
+
+	protected void awaitGates(long nanos) throws InterruptedException {
+		long start = System.nanoTime();
+		LockSupport.parkNanos(nanos);
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		long waited = System.nanoTime() - start;
+		getRejectingGates().forEach(name -> metrics.timer(MetricNames.getGateWait(name)).recordNanos(waited));
+		rejectingGates.clear();
+	}
+
+	protected void leaveGates() {
+		List<MartiniGate> gates = enteredGates;
+		if (null != gates) {
+			enteredGates = null;
+			gates.forEach(MartiniGate::leave);
+		}
+	}
+
 	@Override
 	public void sampleStarting(Sampler sampler) {
 		SamplerContext.set(martini);
+		SamplerContext.set((MartiniBatchSource) this);
+	}
+
+	/**
+	 * Also replaces the SamplerContext Martini, so steps of the next batched Martini see their own Martini.
+	 */
+	@Override
+	public Optional<Martini> nextInBatch() {
+		setMartini(getNextMartini());
+		if (null != martini) {
+			SamplerContext.set(martini);
+		}
+		return Optional.ofNullable(martini);
 	}
 
 	@Override
 	public void sampleEnded(Sampler sampler) {
 	}
 
+	@Override
+	public void threadStarted() {
+	}
+
+	/**
+	 * Releases gate permits still held by this thread's clone, whether it ran out of Martinis or was stopped.
+	 */
+	@Override
+	public void threadFinished() {
+		leaveGates();
+	}
+
 	@Override
 	protected void beginTearDown() {
+		leaveGates();
 		index = null;
 		striped = null;
+		dispatchedCounter = null;
+		interruptedCounter = null;
+		lockWaitTimer = null;
+		metrics = null;
 		martinis = null;
 		martini = null;
+		rejectingGates = null;
+	}
+
+	/**
+	 * Position within one iteration's Martinis, plus Martinis deferred because their gates were full;
+	 * advanced only while holding the iteration's lock.
+	 */
+	protected static final class MartiniCursor {
+
+		private final ImmutableList<Martini> martinis;
+		private final Deque<Martini> deferred;
+		private volatile int position;
+		private volatile int deferredCount;
+
+		protected MartiniCursor(ImmutableList<Martini> martinis) {
+			this.martinis = martinis;
+			this.deferred = new ArrayDeque<>();
+		}
+
+		/**
+		 * Returns the first admitted Martini, trying deferred Martinis in order before those not yet
+		 * dispatched; Martinis not admitted are deferred.
+		 *
+		 * @param admit attempts to admit a Martini, typically by entering its gates
+		 * @return admitted Martini, or null if none could be admitted
+		 */
+		@Nullable
+		protected Martini next(Predicate<Martini> admit) {
+			Martini admitted = null;
+			for (Iterator<Martini> i = deferred.iterator(); null == admitted && i.hasNext(); ) {
+				Martini candidate = i.next();
+				if (admit.test(candidate)) {
+					i.remove();
+					admitted = candidate;
+				}
+			}
+
+			int current = position;
+			while (null == admitted && current < martinis.size()) {
+				Martini candidate = martinis.get(current);
+				current++;
+				if (admit.test(candidate)) {
+					admitted = candidate;
+				}
+				else {
+					deferred.addLast(candidate);
+				}
+			}
+			position = current;
+			deferredCount = deferred.size();
+			return admitted;
+		}
+
+		protected boolean isExhausted() {
+			return position >= martinis.size() && deferred.isEmpty();
+		}
+
+		protected int getRemaining() {
+			return martinis.size() - position + deferredCount;
+		}
+
+		protected int getDeferred() {
+			return deferredCount;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -63,6 +63,16 @@ public class MartiniFilterControllerBeanInfo extends BeanInfoSupport {
 		setSpelFilterDescriptor();
 		setShuffleDescriptor();
 		setRandomSeed();
+
+		String partitionLabel = messageFunction.apply("partition.label");
+		createPropertyGroup(partitionLabel, new String[]{
+			PROPERTY_PARTITION_MODE,
+			PROPERTY_PARTITION_INDEX,
+			PROPERTY_PARTITION_COUNT});
+
+		setPartitionModeDescriptor();
+		setPartitionIndexDescriptor();
+		setPartitionCountDescriptor();
 	}
 
 	protected void setNoMartinisFoundFatal() {
@@ -97,4 +107,24 @@ public class MartiniFilterControllerBeanInfo extends BeanInfoSupport {
 		p.setValue(DEFAULT, 0L);
 		p.setPropertyEditorClass(LongPropertyEditor.class);
 	}
+
+	protected void setPartitionModeDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_PARTITION_MODE);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, PARTITION_MODE_NONE);
+		p.setValue(NOT_OTHER, Boolean.TRUE);
+		p.setValue(TAGS, new String[]{PARTITION_MODE_NONE, PARTITION_MODE_HASH, PARTITION_MODE_ROUND_ROBIN});
+	}
+
+	protected void setPartitionIndexDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_PARTITION_INDEX);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, "${__P(martini.partition.index,0)}");
+	}
+
+	protected void setPartitionCountDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_PARTITION_COUNT);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, "${__P(martini.partition.count,1)}");
+	}
 }
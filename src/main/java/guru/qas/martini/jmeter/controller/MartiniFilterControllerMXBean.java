@@ -0,0 +1,57 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.Map;
+
+/**
+ * Read-only JMX view of a MartiniFilterController's dispatch state, shared by all of its clones.
+ */
+public interface MartiniFilterControllerMXBean {
+
+	String getName();
+
+	int getMartiniCount();
+
+	/**
+	 * @return number of iterations for which Martinis have been requested
+	 */
+	int getIndexSize();
+
+	/**
+	 * @return highest iteration for which Martinis have been requested, or -1 if none
+	 */
+	int getCurrentIteration();
+
+	/**
+	 * @return Martinis not yet dispatched, keyed by iteration
+	 */
+	Map<Integer, Integer> getRemainingByIteration();
+
+	/**
+	 * @return Martinis deferred because their gates were full, keyed by iteration
+	 */
+	Map<Integer, Integer> getDeferredByIteration();
+
+	long getDispatchedCount();
+
+	long getLockWaitCount();
+
+	long getLockWaitTotalMicros();
+
+	long getLockWaitMaxMicros();
+}
@@ -25,5 +25,8 @@ import ch.qos.cal10n.LocaleData;
 public enum MartiniFilterControllerMessages {
 	NO_MARTINI_FOUND,
 	UNIMPLEMENTED_STEPS,
-	INTERRUPTED
+	INTERRUPTED,
+	INVALID_PARTITION,
+	INVALID_PARTITION_MODE,
+	INVALID_PARTITION_VALUE
 }
\ No newline at end of file
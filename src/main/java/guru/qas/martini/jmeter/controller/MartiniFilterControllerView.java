@@ -0,0 +1,108 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.Timer;
+
+/**
+ * Reads dispatch state from the MartiniFilterController that was started; clones share that state.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniFilterControllerView implements MartiniFilterControllerMXBean {
+
+	protected final MartiniFilterController controller;
+
+	public MartiniFilterControllerView(MartiniFilterController controller) {
+		this.controller = controller;
+	}
+
+	@Override
+	public String getName() {
+		return controller.getName();
+	}
+
+	@Override
+	public int getMartiniCount() {
+		ImmutableList<Martini> martinis = controller.martinis;
+		return null == martinis ? 0 : martinis.size();
+	}
+
+	@Override
+	public int getIndexSize() {
+		ConcurrentHashMap<Integer, MartiniFilterController.MartiniCursor> index = controller.index;
+		return null == index ? 0 : index.size();
+	}
+
+	@Override
+	public int getCurrentIteration() {
+		ConcurrentHashMap<Integer, MartiniFilterController.MartiniCursor> index = controller.index;
+		return null == index ? -1 : index.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+	}
+
+	@Override
+	public Map<Integer, Integer> getRemainingByIteration() {
+		ImmutableSortedMap.Builder<Integer, Integer> builder = ImmutableSortedMap.naturalOrder();
+		ConcurrentHashMap<Integer, MartiniFilterController.MartiniCursor> index = controller.index;
+		if (null != index) {
+			index.forEach((iteration, cursor) -> builder.put(iteration, cursor.getRemaining()));
+		}
+		return builder.build();
+	}
+
+	@Override
+	public Map<Integer, Integer> getDeferredByIteration() {
+		ImmutableSortedMap.Builder<Integer, Integer> builder = ImmutableSortedMap.naturalOrder();
+		ConcurrentHashMap<Integer, MartiniFilterController.MartiniCursor> index = controller.index;
+		if (null != index) {
+			index.forEach((iteration, cursor) -> builder.put(iteration, cursor.getDeferred()));
+		}
+		return builder.build();
+	}
+
+	@Override
+	public long getDispatchedCount() {
+		Counter counter = controller.dispatchedCounter;
+		return null == counter ? 0 : counter.getCount();
+	}
+
+	@Override
+	public long getLockWaitCount() {
+		Timer timer = controller.lockWaitTimer;
+		return null == timer ? 0 : timer.getCount();
+	}
+
+	@Override
+	public long getLockWaitTotalMicros() {
+		Timer timer = controller.lockWaitTimer;
+		return null == timer ? 0 : timer.getTotal(TimeUnit.MICROSECONDS);
+	}
+
+	@Override
+	public long getLockWaitMaxMicros() {
+		Timer timer = controller.lockWaitTimer;
+		return null == timer ? 0 : timer.getMax(TimeUnit.MICROSECONDS);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package guru.qas.martini.jmeter.controller;
+
+import guru.qas.martini.Martini;
+
+/**
+ * Brackets Martinis a sampler runs beyond the one dispatched to it with their own scenario lifecycle. Offered
+ * through the SamplerContext by the controller publishing scenario events for the sampler.
+ */
+public interface MartiniScenarioScope {
+
+	/**
+	 * Ends the current scenario and begins one for the given Martini, without pacing.
+	 *
+	 * @param martini Martini about to be run
+	 */
+	void nextScenario(Martini martini);
+}
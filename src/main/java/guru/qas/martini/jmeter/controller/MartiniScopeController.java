@@ -19,6 +19,7 @@ package guru.qas.martini.jmeter.controller;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.jmeter.engine.event.LoopIterationEvent;
@@ -26,14 +27,13 @@ import org.apache.jmeter.engine.event.LoopIterationListener;
 import org.apache.jmeter.samplers.SampleMonitor;
 import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.testbeans.BeanInfoSupport;
-import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.ThreadListener;
 import org.apache.jmeter.threads.AbstractThreadGroup;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterThread;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
 import org.apache.jorphan.collections.ListedHashTree;
-import org.apache.jorphan.collections.SearchByClass;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Configurable;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
@@ -52,30 +52,55 @@ import gherkin.pickles.Pickle;
 import gherkin.pickles.PickleLocation;
 import gherkin.pickles.PickleStep;
 import guru.qas.martini.Martini;
+import guru.qas.martini.Messages;
 import guru.qas.martini.SyntheticMartini;
 import guru.qas.martini.annotation.When;
-import guru.qas.martini.event.SuiteIdentifier;
 import guru.qas.martini.gherkin.DefaultRecipe;
 import guru.qas.martini.gherkin.FeatureWrapper;
 import guru.qas.martini.gherkin.Recipe;
 import guru.qas.martini.jmeter.SamplerContext;
 import guru.qas.martini.jmeter.Variables;
-import guru.qas.martini.result.DefaultMartiniResult;
+import guru.qas.martini.jmeter.jfr.ScenarioEvent;
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.MetricNames;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.metrics.Timer;
+import guru.qas.martini.jmeter.result.MartiniResultFactory;
+import guru.qas.martini.jmeter.timer.PreciseSleep;
 import guru.qas.martini.result.MartiniResult;
-import guru.qas.martini.tag.Categories;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static guru.qas.martini.jmeter.controller.MartiniScopeControllerMessages.INVALID_CYCLE_TIME;
 
 @SuppressWarnings("WeakerAccess")
 @Configurable
 public class MartiniScopeController extends AbstractGenericController
-	implements LoopIterationListener, SampleMonitor {
+	implements LoopIterationListener, SampleMonitor, ThreadListener, MartiniScenarioScope {
+
+	// These must match field names exactly.
+	protected static final String PROPERTY_CYCLE_TIME = "cycleTime";
+
+	// Serialized.
+	protected String cycleTime;
 
 	// Shared.
 	protected MartiniScopeControllerBean delegate;
-	protected Categories categories;
-	protected SuiteIdentifier suiteIdentifier;
-
-	// Per-thread.
+	protected MartiniResultFactory resultFactory;
+	protected MetricsRegistry metrics;
+	protected transient Counter begunCounter;
+	protected transient Counter endedCounter;
+	protected transient Timer idleTimer;
+	protected transient long cycleNanos;
+	protected transient ScopeSubtree subtree;
+
+	// Per-thread; non-null while a BeforeScenarioEvent awaits its AfterScenarioEvent.
 	protected MartiniResult martiniResult;
+	protected ScenarioEvent scenarioEvent;
+
+	// Per-thread pacing schedule; nextCycleStart is a System.nanoTime() value, valid once cycleAnchored.
+	protected transient boolean cycleAnchored;
+	protected transient long nextCycleStart;
+	protected transient Long intendedStart;
 
 	@Autowired
 	void set(MartiniScopeControllerBean b) {
@@ -83,26 +108,40 @@ public class MartiniScopeController extends AbstractGenericController
 	}
 
 	@Autowired
-	void set(Categories c) {
-		this.categories = c;
+	void set(MartiniResultFactory f) {
+		this.resultFactory = f;
 	}
 
 	@Autowired
-	void set(SuiteIdentifier i) {
-		this.suiteIdentifier = i;
+	void set(MetricsRegistry r) {
+		this.metrics = r;
 	}
 
 	public MartiniScopeController() {
 		super();
 	}
 
+	public String getCycleTime() {
+		return cycleTime;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setCycleTime(String s) {
+		cycleTime = null == s ? "" : s.trim();
+	}
+
 	@Override
 	public Object clone() {
 		Object o = super.clone();
 		MartiniScopeController clone = MartiniScopeController.class.cast(o);
 		clone.delegate = delegate;
-		clone.categories = categories;
-		clone.suiteIdentifier = suiteIdentifier;
+		clone.resultFactory = resultFactory;
+		clone.metrics = metrics;
+		clone.begunCounter = begunCounter;
+		clone.endedCounter = endedCounter;
+		clone.idleTimer = idleTimer;
+		clone.cycleNanos = cycleNanos;
+		clone.subtree = subtree;
 		return clone;
 	}
 
@@ -116,6 +155,26 @@ public class MartiniScopeController extends AbstractGenericController
 		ConfigurableApplicationContext springContext = Variables.getSpringApplicationContext();
 		AutowireCapableBeanFactory beanFactory = springContext.getAutowireCapableBeanFactory();
 		beanFactory.autowireBean(this);
+		String name = getName();
+		begunCounter = metrics.counter(MetricNames.getScopeBegun(name));
+		endedCounter = metrics.counter(MetricNames.getScopeEnded(name));
+		idleTimer = metrics.timer(MetricNames.getScopeIdle(name));
+		cycleNanos = TimeUnit.MILLISECONDS.toNanos(parseCycleTime());
+		subtree = new ScopeSubtree();
+		registerMBean(new MartiniScopeControllerView(this), MartiniScopeControllerMXBean.class);
+	}
+
+	protected long parseCycleTime() {
+		String value = null == cycleTime || cycleTime.isEmpty() ? "0" : cycleTime;
+		long parsed;
+		try {
+			parsed = Long.parseLong(value);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.getMessage(INVALID_CYCLE_TIME, PROPERTY_CYCLE_TIME, value), e);
+		}
+		checkArgument(parsed >= 0, Messages.getMessage(INVALID_CYCLE_TIME, PROPERTY_CYCLE_TIME, value));
+		return parsed;
 	}
 
 	@Override
@@ -123,10 +182,46 @@ public class MartiniScopeController extends AbstractGenericController
 		endScenario();
 	}
 
+	@Override
+	public void threadStarted() {
+	}
+
+	/**
+	 * Ends this controller's scenario and closes resources this thread opened in the JMeter thread scope, unless
+	 * another scope controller's scenario still holds them; the last to end closes them.
+	 */
+	@Override
+	public void threadFinished() {
+		if (null != delegate) {
+			endScenario();
+		}
+		Variables.closeThreadResources();
+	}
+
 	protected void endScenario() {
-		delegate.publishAfterScenario(martiniResult);
-		martiniResult = null;
-		Variables.set((MartiniResult) null);
+		MartiniResult result = martiniResult;
+		if (null != result) {
+			martiniResult = null;
+			Variables.set((MartiniResult) null);
+			try {
+				delegate.publishAfterScenario(result);
+				endedCounter.increment();
+				commitScenarioEvent(result);
+			}
+			finally {
+				Variables.getThreadResources().release();
+			}
+		}
+	}
+
+	protected void commitScenarioEvent(MartiniResult result) {
+		ScenarioEvent event = scenarioEvent;
+		if (null != event) {
+			scenarioEvent = null;
+			event.end();
+			event.status = result.getStatus().map(Enum::name).orElse(null);
+			event.commit();
+		}
 	}
 
 	@Override
@@ -138,24 +233,70 @@ public class MartiniScopeController extends AbstractGenericController
 	}
 
 	protected void beginScenario() {
+		pace();
 		Martini martini = Variables.getOptionalMartini().orElseGet(this::getSyntheticMartini);
-		MartiniResult result = DefaultMartiniResult.builder()
-			.setMartiniSuiteIdentifier(suiteIdentifier)
-			.setMartini(martini)
-			.build(categories);
+		beginScenario(martini);
+	}
+
+	protected void beginScenario(Martini martini) {
+		MartiniResult result = resultFactory.newResult(martini);
+		beginScenarioEvent(martini);
+		begunCounter.increment();
 		delegate.publishBeforeScenario(result);
 		this.martiniResult = result;
 		Variables.set(martiniResult);
+		Variables.getThreadResources().hold(); // Released as the scenario ends.
+	}
+
+	/**
+	 * Holds this thread to one scenario per cycle time. Cycle starts follow a fixed schedule from the thread's
+	 * first scenario, so sleep overshoot and scenario time do not accumulate as drift. A scenario overrunning
+	 * its cycle starts the next one immediately and re-anchors the schedule rather than bursting to catch up.
+	 * The scheduled start is offered to the first sampler as its intended start, and time spent waiting is
+	 * recorded as the controller's idle metric.
+	 */
+	protected void pace() {
+		if (cycleNanos > 0) {
+			long now = System.nanoTime();
+			long scheduled = cycleAnchored ? nextCycleStart : now;
+			cycleAnchored = true;
+			if (scheduled - now > 0) {
+				idleTimer.recordNanos(PreciseSleep.until(scheduled));
+				nextCycleStart = scheduled + cycleNanos;
+			}
+			else {
+				nextCycleStart = now + cycleNanos;
+			}
+			long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduled);
+			intendedStart = System.currentTimeMillis() - lag;
+		}
+	}
+
+	protected void beginScenarioEvent(Martini martini) {
+		ScenarioEvent event = new ScenarioEvent();
+		if (event.isEnabled()) {
+			event.martiniId = martini.getId();
+			event.threadName = Thread.currentThread().getName();
+			event.iteration = Variables.getIteration();
+			event.begin();
+			scenarioEvent = event;
+		}
 	}
 
 	protected Martini getSyntheticMartini() {
-		Recipe recipe = getRecipe();
-		return new SyntheticMartini(recipe);
+		ScopeSubtree indexed = getSubtree();
+		Martini martini = indexed.getSynthetic();
+		if (null == martini) {
+			Recipe recipe = getRecipe(indexed);
+			martini = new SyntheticMartini(recipe);
+			indexed.setSynthetic(martini);
+		}
+		return martini;
 	}
 
-	protected Recipe getRecipe() {
-		HashTree hashTree = getHashTree();
-		Scenario scenario = getScenario(hashTree);
+	protected Recipe getRecipe(ScopeSubtree indexed) {
+		HashTree hashTree = indexed.getTree();
+		Scenario scenario = getScenario(indexed.getSamplers());
 		FeatureWrapper featureWrapper = getFeatureWrapper(scenario, hashTree);
 
 		Pickle pickle = getPickle(scenario, featureWrapper);
@@ -164,34 +305,27 @@ public class MartiniScopeController extends AbstractGenericController
 		return new DefaultRecipe(featureWrapper, pickle, location, scenario);
 	}
 
-	protected HashTree getHashTree() {
-		JMeterContext threadContext = super.getThreadContext();
-		JMeterThread thread = threadContext.getThread();
-		ListedHashTree tree = thread.getTestTree();
-		SearchByClass<MartiniScopeController> controllerSearch = new SearchByClass<>(MartiniScopeController.class);
-		tree.traverse(controllerSearch);
-		return controllerSearch.getSubTree(this);
+	/**
+	 * The first thread to need any scope controller's subtree walks its test tree once, indexing every scope
+	 * controller it contains; the index is shared with all clones, so later threads and controllers reuse it.
+	 */
+	protected ScopeSubtree getSubtree() {
+		if (!subtree.isIndexed()) {
+			JMeterContext threadContext = super.getThreadContext();
+			JMeterThread thread = threadContext.getThread();
+			ListedHashTree tree = thread.getTestTree();
+			tree.traverse(new ScopeSubtreeIndexer());
+		}
+		return subtree;
 	}
 
-	protected Scenario getScenario(HashTree hashTree) {
-		Collection<Sampler> samplers = getSamplers(hashTree);
+	protected Scenario getScenario(Collection<Sampler> samplers) {
 		List<Step> steps = samplers.stream()
-			.filter(TestElement::isEnabled)
 			.map(this::getStep)
 			.collect(Collectors.toList());
 		return getScenario(steps);
 	}
 
-	protected List<Sampler> getSamplers(HashTree hashTree) {
-		SearchByClass<Sampler> samplerSearch = new SearchByClass<>(Sampler.class);
-		hashTree.traverse(samplerSearch);
-
-		Collection<Sampler> samplers = samplerSearch.getSearchResults();
-		return samplers.stream()
-			.filter(TestElement::isEnabled)
-			.collect(Collectors.toList());
-	}
-
 	protected Step getStep(Sampler sampler) {
 		Location location = new Location(0, 0);
 		String keyword = When.class.getSimpleName();
@@ -244,9 +378,26 @@ public class MartiniScopeController extends AbstractGenericController
 		return new Pickle(name, language, pickleSteps, ImmutableList.of(), ImmutableList.of(location));
 	}
 
+	/**
+	 * Lets a sampler running a batch give each further Martini its own before and after scenario events,
+	 * result and counts. Batched Martinis share the cycle of the scenario dispatched with them.
+	 */
+	@Override
+	public void nextScenario(Martini martini) {
+		endScenario();
+		beginScenario(martini);
+		SamplerContext.set(martiniResult);
+	}
+
 	@Override
 	public void sampleStarting(Sampler sampler) {
 		SamplerContext.set(martiniResult);
+		SamplerContext.set((MartiniScenarioScope) this);
+		Long start = intendedStart;
+		if (null != start) {
+			intendedStart = null;
+			SamplerContext.setIntendedStart(start);
+		}
 	}
 
 	@Override
@@ -260,7 +411,15 @@ public class MartiniScopeController extends AbstractGenericController
 			delegate = null;
 		}
 		martiniResult = null;
-		categories = null;
-		suiteIdentifier = null;
+		scenarioEvent = null;
+		resultFactory = null;
+		subtree = null;
+		metrics = null;
+		begunCounter = null;
+		endedCounter = null;
+		idleTimer = null;
+		intendedStart = null;
+		cycleAnchored = false;
+		nextCycleStart = 0;
 	}
 }
\ No newline at end of file
@@ -29,7 +29,8 @@ public interface MartiniScopeControllerBean extends DisposableBean {
 	void publishAfterScenario(@Nullable MartiniResult result);
 
 	/**
-	 * Should call publishAfterScenario().
+	 * Releases any resources held by the bean. Outstanding scenarios are closed by their
+	 * MartiniScopeController.
 	 *
 	 * @throws Exception when problem encountered
 	 */
@@ -16,12 +16,45 @@ limitations under the License.
 
 package guru.qas.martini.jmeter.controller;
 
+import java.beans.BeanDescriptor;
+import java.beans.PropertyDescriptor;
+import java.util.function.Function;
+
 import org.apache.jmeter.testbeans.BeanInfoSupport;
 
+import guru.qas.martini.ResourceBundleMessageFunction;
+
+import static guru.qas.martini.jmeter.controller.MartiniScopeController.PROPERTY_CYCLE_TIME;
+
 @SuppressWarnings("WeakerAccess")
 public class MartiniScopeControllerBeanInfo extends BeanInfoSupport {
 
+	protected Function<String, String> messageFunction;
+
 	public MartiniScopeControllerBeanInfo() {
 		super(MartiniScopeController.class);
+		init();
+	}
+
+	protected void init() {
+		setUpMessageFunction();
+		setUpProperties();
+	}
+
+	protected void setUpMessageFunction() {
+		BeanDescriptor descriptor = super.getBeanDescriptor();
+		messageFunction = ResourceBundleMessageFunction.getInstance(descriptor);
+	}
+
+	protected void setUpProperties() {
+		String label = messageFunction.apply("pacing.label");
+		createPropertyGroup(label, new String[]{PROPERTY_CYCLE_TIME});
+		setCycleTimeDescriptor();
+	}
+
+	protected void setCycleTimeDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_CYCLE_TIME);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, "0");
 	}
 }
@@ -1,5 +1,5 @@
 /*
-Copyright 2018 Penny Rohr Curich
+Copyright 2019 Penny Rohr Curich
 
 Licensed under the Apache License, Version 2.0 (the "License");
 you may not use this file except in compliance with the License.
@@ -20,12 +20,8 @@ import ch.qos.cal10n.BaseName;
 import ch.qos.cal10n.Locale;
 import ch.qos.cal10n.LocaleData;
 
-@BaseName("guru.qas.martini.jmeter.controller.defaultMartiniScopeControllerBeanMessages")
+@BaseName("guru.qas.martini.jmeter.controller.martiniScopeControllerMessages")
 @LocaleData({@Locale("en")})
-public enum DefaultMartiniScopeControllerBeanMessages {
-	BEFORE_EVENT_ALREADY_PUBLISHED,
-	PUBLISHING_BEFORE_EVENT,
-	PUBLISHING_AFTER_EVENT,
-	AFTER_EVENT_NOT_PUBLISHED,
-	BEFORE_EVENT_NOT_PUBLISHED
+public enum MartiniScopeControllerMessages {
+	INVALID_CYCLE_TIME
 }
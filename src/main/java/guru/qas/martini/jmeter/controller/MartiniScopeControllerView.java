@@ -0,0 +1,60 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.Timer;
+
+@SuppressWarnings("WeakerAccess")
+public class MartiniScopeControllerView implements MartiniScopeControllerMXBean {
+
+	protected final MartiniScopeController controller;
+
+	public MartiniScopeControllerView(MartiniScopeController controller) {
+		this.controller = controller;
+	}
+
+	@Override
+	public String getName() {
+		return controller.getName();
+	}
+
+	@Override
+	public long getScenariosBegun() {
+		Counter counter = controller.begunCounter;
+		return null == counter ? 0 : counter.getCount();
+	}
+
+	@Override
+	public long getScenariosEnded() {
+		Counter counter = controller.endedCounter;
+		return null == counter ? 0 : counter.getCount();
+	}
+
+	@Override
+	public long getActiveScenarios() {
+		return getScenariosBegun() - getScenariosEnded();
+	}
+
+	@Override
+	public long getIdleMillis() {
+		Timer timer = controller.idleTimer;
+		return null == timer ? 0 : timer.getTotal(TimeUnit.MILLISECONDS);
+	}
+}
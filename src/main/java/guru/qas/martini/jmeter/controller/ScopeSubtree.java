@@ -0,0 +1,62 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.List;
+
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jorphan.collections.HashTree;
+
+import guru.qas.martini.Martini;
+
+/**
+ * Subtree and enabled samplers beneath one MartiniScopeController, shared by the controller and all of its
+ * clones for the duration of a test.
+ */
+final class ScopeSubtree {
+
+	private volatile HashTree tree;
+	private volatile List<Sampler> samplers;
+	private volatile Martini synthetic;
+
+	boolean isIndexed() {
+		return null != samplers;
+	}
+
+	void set(HashTree tree, List<Sampler> samplers) {
+		if (!isIndexed()) {
+			this.tree = tree;
+			this.samplers = samplers;
+		}
+	}
+
+	HashTree getTree() {
+		return tree;
+	}
+
+	List<Sampler> getSamplers() {
+		return samplers;
+	}
+
+	Martini getSynthetic() {
+		return synthetic;
+	}
+
+	void setSynthetic(Martini martini) {
+		synthetic = martini;
+	}
+}
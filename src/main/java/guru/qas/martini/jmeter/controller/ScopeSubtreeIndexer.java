@@ -0,0 +1,84 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.controller;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.HashTreeTraverser;
+import org.apache.jorphan.collections.ListedHashTree;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * Indexes every MartiniScopeController in a thread's test tree in a single traversal, handing each its
+ * subtree and enabled samplers. Nested scope controllers each see every sampler beneath them.
+ */
+final class ScopeSubtreeIndexer implements HashTreeTraverser {
+
+	private final Deque<Object> path;
+	private final Map<MartiniScopeController, ListedHashTree> subtrees;
+	private final Map<MartiniScopeController, ImmutableList.Builder<Sampler>> samplers;
+
+	ScopeSubtreeIndexer() {
+		path = new ArrayDeque<>();
+		subtrees = Maps.newIdentityHashMap();
+		samplers = Maps.newIdentityHashMap();
+	}
+
+	@Override
+	public void addNode(Object node, HashTree subTree) {
+		path.push(node);
+		if (node instanceof MartiniScopeController) {
+			MartiniScopeController controller = (MartiniScopeController) node;
+			ListedHashTree tree = new ListedHashTree(node);
+			tree.set(node, subTree);
+			subtrees.put(controller, tree);
+			samplers.put(controller, ImmutableList.builder());
+		}
+		else if (node instanceof Sampler && ((TestElement) node).isEnabled()) {
+			Sampler sampler = (Sampler) node;
+			path.stream()
+				.filter(samplers::containsKey)
+				.map(samplers::get)
+				.forEach(builder -> builder.add(sampler));
+		}
+	}
+
+	@Override
+	public void subtractNode() {
+		Object node = path.pop();
+		if (node instanceof MartiniScopeController) {
+			MartiniScopeController controller = (MartiniScopeController) node;
+			List<Sampler> enabled = samplers.remove(controller).build();
+			ScopeSubtree subtree = controller.subtree;
+			if (null != subtree) {
+				subtree.set(subtrees.remove(controller), enabled);
+			}
+		}
+	}
+
+	@Override
+	public void processPath() {
+	}
+}
@@ -0,0 +1,174 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.filter;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.Mixologist;
+import guru.qas.martini.jmeter.result.MartiniResultFactory;
+import guru.qas.martini.tag.MartiniTag;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Answers filters combining tag and category predicates from an inverted index of predicate to BitSet of
+ * Martini ordinals, built once per suite.
+ * <p>
+ * The index is built in a single pass over the Martinis: each tag indexes isMeta('name') and
+ * isMeta('name', 'argument'), a WIP tag also indexes isWIP(), and each of the Martini's resolved
+ * categorizations indexes isCategory('category'). Names are matched exactly as declared. Any other predicate
+ * call, e.g. isFeature('Login'), is resolved once through Mixologist and cached. Every filter is then
+ * answered with bitset algebra; filters using anything beyond predicate calls and boolean operators are
+ * passed to Mixologist unchanged.
+ * <p>
+ * Ordinals are keyed by Martini identity, so distinct Martinis sharing an id are each matched.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DefaultMartiniFilterIndex implements MartiniFilterIndex {
+
+	protected static final String PREDICATE_META = "isMeta";
+	protected static final String PREDICATE_WIP = "isWIP";
+	protected static final String PREDICATE_CATEGORY = "isCategory";
+	protected static final String TAG_WIP = "WIP";
+
+	protected final Mixologist mixologist;
+	protected final MartiniResultFactory resultFactory;
+	protected final Map<String, BitSet> resolved;
+	protected volatile Catalogue catalogue;
+
+	@Autowired
+	protected DefaultMartiniFilterIndex(Mixologist mixologist, MartiniResultFactory resultFactory) {
+		this.mixologist = checkNotNull(mixologist, "null Mixologist");
+		this.resultFactory = checkNotNull(resultFactory, "null MartiniResultFactory");
+		this.resolved = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public List<Martini> getMartinis(String spelFilter) {
+		checkNotNull(spelFilter, "null String");
+		Optional<FilterExpression> expression = FilterExpression.parse(spelFilter);
+		return expression.isPresent() ? getMartinis(expression.get()) : ImmutableList.copyOf(mixologist.getMartinis(spelFilter));
+	}
+
+	protected List<Martini> getMartinis(FilterExpression expression) {
+		Catalogue catalogue = getCatalogue();
+		BitSet matches = expression.evaluate(this::getOrdinals, catalogue.martinis.size());
+		ImmutableList.Builder<Martini> builder = ImmutableList.builder();
+		matches.stream().mapToObj(catalogue.martinis::get).forEach(builder::add);
+		return builder.build();
+	}
+
+	protected Catalogue getCatalogue() {
+		Catalogue current = catalogue;
+		if (null == current) {
+			synchronized (this) {
+				current = catalogue;
+				if (null == current) {
+					current = new Catalogue(mixologist.getMartinis(), resultFactory);
+					catalogue = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	protected BitSet getOrdinals(String predicate) {
+		Catalogue catalogue = getCatalogue();
+		BitSet ordinals = catalogue.index.get(predicate);
+		if (null == ordinals && isIndexed(predicate)) {
+			ordinals = catalogue.none;
+		}
+		else if (null == ordinals) {
+			ordinals = resolved.get(predicate);
+			ordinals = null == ordinals ? resolved.computeIfAbsent(predicate, this::resolve) : ordinals;
+		}
+		return ordinals;
+	}
+
+	/**
+	 * @return true if the predicate is one the catalogue indexes, so that no entry means no match
+	 */
+	protected boolean isIndexed(String predicate) {
+		return predicate.startsWith(PREDICATE_META + '(')
+			|| predicate.startsWith(PREDICATE_CATEGORY + '(')
+			|| predicate.equals(FilterExpression.call(PREDICATE_WIP));
+	}
+
+	protected BitSet resolve(String predicate) {
+		Catalogue catalogue = getCatalogue();
+		BitSet ordinals = new BitSet(catalogue.martinis.size());
+		mixologist.getMartinis(predicate).stream()
+			.map(catalogue.ordinals::get)
+			.filter(Objects::nonNull)
+			.forEach(ordinals::set);
+		return ordinals;
+	}
+
+	protected static final class Catalogue {
+
+		protected final ImmutableList<Martini> martinis;
+		protected final Map<Martini, Integer> ordinals;
+		protected final ImmutableMap<String, BitSet> index;
+		protected final BitSet none;
+
+		protected Catalogue(Collection<Martini> martinis, MartiniResultFactory resultFactory) {
+			this.martinis = ImmutableList.copyOf(martinis);
+			Map<Martini, Integer> ordinals = new IdentityHashMap<>(this.martinis.size());
+			Map<String, BitSet> index = Maps.newHashMap();
+			for (int i = 0; i < this.martinis.size(); i++) {
+				Martini martini = this.martinis.get(i);
+				ordinals.put(martini, i);
+				for (MartiniTag tag : martini.getTags()) {
+					String name = tag.getName();
+					String argument = tag.getArgument();
+					set(index, FilterExpression.call(PREDICATE_META, name), i);
+					if (null != argument) {
+						set(index, FilterExpression.call(PREDICATE_META, name, argument), i);
+					}
+					if (TAG_WIP.equals(name)) {
+						set(index, FilterExpression.call(PREDICATE_WIP), i);
+					}
+				}
+				for (String category : resultFactory.newResult(martini).getCategorizations()) {
+					set(index, FilterExpression.call(PREDICATE_CATEGORY, category), i);
+				}
+			}
+			this.ordinals = Collections.unmodifiableMap(ordinals);
+			this.index = ImmutableMap.copyOf(index);
+			this.none = new BitSet(0);
+		}
+
+		private static void set(Map<String, BitSet> index, String predicate, int ordinal) {
+			index.computeIfAbsent(predicate, key -> new BitSet()).set(ordinal);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.filter;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Boolean combination of predicate calls such as {@code isMeta('Smoke') and !isWIP()}.
+ * <p>
+ * Supports calls taking only string literal arguments combined with and, or, not, &amp;&amp;, ||, ! and
+ * parentheses, with SpEL precedence. Each call is an atom resolved once into a BitSet of Martini ordinals; the
+ * expression is then answered with bitset algebra. Anything else is left to SpEL in full.
+ */
+abstract class FilterExpression {
+
+	/**
+	 * @param atoms BitSet of matching Martini ordinals for each atom, which must not be modified
+	 * @param size  number of Martinis in the catalogue
+	 * @return new BitSet of matching Martini ordinals
+	 */
+	abstract BitSet evaluate(Function<String, BitSet> atoms, int size);
+
+	/**
+	 * @param filter SpEL filter
+	 * @return expression, or empty if the filter uses anything beyond predicate calls and boolean operators
+	 */
+	static Optional<FilterExpression> parse(String filter) {
+		Parser parser = new Parser(filter);
+		FilterExpression expression = parser.parse();
+		return Optional.ofNullable(expression);
+	}
+
+	/**
+	 * @param name      predicate name, e.g. isMeta
+	 * @param arguments unquoted string arguments
+	 * @return canonical atom text, e.g. {@code isMeta('Smoke')}, as produced for parsed calls
+	 */
+	static String call(String name, String... arguments) {
+		List<String> quoted = Lists.newArrayListWithCapacity(arguments.length);
+		for (String argument : arguments) {
+			quoted.add(String.format("'%s'", argument.replace("'", "''")));
+		}
+		return String.format("%s(%s)", name, String.join(", ", quoted));
+	}
+
+	static final class Atom extends FilterExpression {
+
+		final String text;
+
+		Atom(String text) {
+			this.text = text;
+		}
+
+		@Override
+		BitSet evaluate(Function<String, BitSet> atoms, int size) {
+			return (BitSet) atoms.apply(text).clone();
+		}
+	}
+
+	static final class Not extends FilterExpression {
+
+		final FilterExpression operand;
+
+		Not(FilterExpression operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		BitSet evaluate(Function<String, BitSet> atoms, int size) {
+			BitSet bits = operand.evaluate(atoms, size);
+			bits.flip(0, size);
+			return bits;
+		}
+	}
+
+	static final class And extends FilterExpression {
+
+		final List<FilterExpression> operands;
+
+		And(List<FilterExpression> operands) {
+			this.operands = ImmutableList.copyOf(operands);
+		}
+
+		@Override
+		BitSet evaluate(Function<String, BitSet> atoms, int size) {
+			BitSet bits = operands.get(0).evaluate(atoms, size);
+			for (int i = 1; i < operands.size() && !bits.isEmpty(); i++) {
+				bits.and(operands.get(i).evaluate(atoms, size));
+			}
+			return bits;
+		}
+	}
+
+	static final class Or extends FilterExpression {
+
+		final List<FilterExpression> operands;
+
+		Or(List<FilterExpression> operands) {
+			this.operands = ImmutableList.copyOf(operands);
+		}
+
+		@Override
+		BitSet evaluate(Function<String, BitSet> atoms, int size) {
+			BitSet bits = operands.get(0).evaluate(atoms, size);
+			for (int i = 1; i < operands.size() && bits.cardinality() < size; i++) {
+				bits.or(operands.get(i).evaluate(atoms, size));
+			}
+			return bits;
+		}
+	}
+
+	/**
+	 * Recursive descent parser; returns null rather than throwing on unsupported input.
+	 */
+	private static final class Parser {
+
+		private final String source;
+		private int position;
+
+		Parser(String source) {
+			this.source = null == source ? "" : source;
+		}
+
+		FilterExpression parse() {
+			FilterExpression expression = parseOr();
+			skipWhitespace();
+			return position == source.length() ? expression : null;
+		}
+
+		private FilterExpression parseOr() {
+			FilterExpression first = parseAnd();
+			List<FilterExpression> operands = null == first ? null : Lists.newArrayList(first);
+			while (null != operands && (acceptSymbol("||") || acceptKeyword("or"))) {
+				FilterExpression operand = parseAnd();
+				operands = null == operand ? null : operands;
+				if (null != operands) {
+					operands.add(operand);
+				}
+			}
+			return null == operands ? null : 1 == operands.size() ? first : new Or(operands);
+		}
+
+		private FilterExpression parseAnd() {
+			FilterExpression first = parseUnary();
+			List<FilterExpression> operands = null == first ? null : Lists.newArrayList(first);
+			while (null != operands && (acceptSymbol("&&") || acceptKeyword("and"))) {
+				FilterExpression operand = parseUnary();
+				operands = null == operand ? null : operands;
+				if (null != operands) {
+					operands.add(operand);
+				}
+			}
+			return null == operands ? null : 1 == operands.size() ? first : new And(operands);
+		}
+
+		private FilterExpression parseUnary() {
+			FilterExpression expression;
+			if ((!lookingAt("!=") && acceptSymbol("!")) || acceptKeyword("not")) {
+				FilterExpression operand = parseUnary();
+				expression = null == operand ? null : new Not(operand);
+			}
+			else {
+				expression = parsePrimary();
+			}
+			return expression;
+		}
+
+		private FilterExpression parsePrimary() {
+			FilterExpression expression;
+			if (acceptSymbol("(")) {
+				expression = parseOr();
+				expression = null != expression && acceptSymbol(")") ? expression : null;
+			}
+			else {
+				expression = parseCall();
+			}
+			return expression;
+		}
+
+		private FilterExpression parseCall() {
+			String name = readIdentifier();
+			if (null == name || isKeyword(name) || !acceptSymbol("(")) {
+				return null;
+			}
+
+			List<String> arguments = Lists.newArrayList();
+			boolean closed = acceptSymbol(")");
+			while (!closed) {
+				String argument = readString();
+				if (null == argument) {
+					return null;
+				}
+				arguments.add(argument);
+				closed = acceptSymbol(")");
+				if (!closed && !acceptSymbol(",")) {
+					return null;
+				}
+			}
+			return new Atom(call(name, arguments.toArray(new String[0])));
+		}
+
+		private String readIdentifier() {
+			skipWhitespace();
+			int start = position;
+			if (position < source.length() && Character.isJavaIdentifierStart(source.charAt(position))) {
+				position++;
+				while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+					position++;
+				}
+			}
+			return start == position ? null : source.substring(start, position);
+		}
+
+		private String readString() {
+			skipWhitespace();
+			if (position >= source.length() || '\'' != source.charAt(position)) {
+				return null;
+			}
+			StringBuilder value = new StringBuilder();
+			position++;
+			while (position < source.length()) {
+				char c = source.charAt(position++);
+				if ('\'' != c) {
+					value.append(c);
+				}
+				else if (position < source.length() && '\'' == source.charAt(position)) {
+					value.append('\'');
+					position++;
+				}
+				else {
+					return value.toString();
+				}
+			}
+			return null;
+		}
+
+		private boolean acceptSymbol(String symbol) {
+			boolean accepted = lookingAt(symbol);
+			if (accepted) {
+				position += symbol.length();
+			}
+			return accepted;
+		}
+
+		private boolean lookingAt(String symbol) {
+			skipWhitespace();
+			return source.startsWith(symbol, position);
+		}
+
+		private boolean acceptKeyword(String keyword) {
+			skipWhitespace();
+			int end = position + keyword.length();
+			boolean accepted = source.regionMatches(true, position, keyword, 0, keyword.length())
+				&& (end == source.length() || !Character.isJavaIdentifierPart(source.charAt(end)));
+			if (accepted) {
+				position = end;
+			}
+			return accepted;
+		}
+
+		private static boolean isKeyword(String identifier) {
+			return "and".equalsIgnoreCase(identifier)
+				|| "or".equalsIgnoreCase(identifier)
+				|| "not".equalsIgnoreCase(identifier);
+		}
+
+		private void skipWhitespace() {
+			while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+				position++;
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.filter;
+
+import java.util.List;
+
+import guru.qas.martini.Martini;
+
+/**
+ * Suite-scoped lookup of the Martinis matching a SpEL filter.
+ */
+public interface MartiniFilterIndex {
+
+	/**
+	 * @param spelFilter SpEL filter as accepted by Mixologist
+	 * @return matching Martinis in catalogue order
+	 */
+	List<Martini> getMartinis(String spelFilter);
+}
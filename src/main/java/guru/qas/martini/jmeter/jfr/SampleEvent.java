@@ -0,0 +1,48 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans execution of a Martini by MartiniSampler.
+ */
+@SuppressWarnings("WeakerAccess")
+@Name("guru.qas.martini.Sample")
+@Label("Martini Sample")
+@Category({"Martini", "JMeter"})
+@Description("Execution of a Martini's steps within a JMeter sample")
+@StackTrace(false)
+public class SampleEvent extends Event {
+
+	@Label("Martini ID")
+	public String martiniId;
+
+	@Label("Thread Name")
+	public String threadName;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Status")
+	public String status;
+}
@@ -0,0 +1,62 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * Records a completed step. Steps are executed by Martini core, so timing is taken from the StepResult
+ * rather than from the event's own duration.
+ */
+@SuppressWarnings("WeakerAccess")
+@Name("guru.qas.martini.Step")
+@Label("Martini Step")
+@Category({"Martini", "JMeter"})
+@Description("Result of a single Martini step")
+@StackTrace(false)
+public class StepEvent extends Event {
+
+	@Label("Martini ID")
+	public String martiniId;
+
+	@Label("Thread Name")
+	public String threadName;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Step")
+	public String step;
+
+	@Label("Status")
+	public String status;
+
+	@Label("Step Start")
+	@Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+	public long stepStart;
+
+	@Label("Step Duration")
+	@Timespan(Timespan.MILLISECONDS)
+	public long stepDuration;
+}
@@ -0,0 +1,112 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.listener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Rolling count, error count and elapsed-time histograms for one feature, scenario or step.
+ * <p>
+ * Two histograms are kept: raw elapsed time, and latency corrected for coordinated omission, measured
+ * from the sample's intended start where a pacing timer or schedule supplied one.
+ * <p>
+ * Sampler threads record through striped LongAdders and an HdrHistogram Recorder without taking locks;
+ * a single flushing thread drains the interval figures and accumulates run totals.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MartiniAggregate {
+
+	private final LongAdder count;
+	private final LongAdder errors;
+	private final Recorder recorder;
+	private final Recorder correctedRecorder;
+
+	// Flushing thread only.
+	private Histogram interval;
+	private Histogram correctedInterval;
+	private final Histogram total;
+	private final Histogram correctedTotal;
+	private long drainedCount;
+	private long drainedErrors;
+
+	MartiniAggregate(int significantDigits) {
+		count = new LongAdder();
+		errors = new LongAdder();
+		recorder = new Recorder(significantDigits);
+		correctedRecorder = new Recorder(significantDigits);
+		total = new Histogram(significantDigits);
+		correctedTotal = new Histogram(significantDigits);
+	}
+
+	public void record(long elapsedMillis, boolean successful) {
+		record(elapsedMillis, elapsedMillis, successful);
+	}
+
+	public void record(long elapsedMillis, long correctedMillis, boolean successful) {
+		count.increment();
+		if (!successful) {
+			errors.increment();
+		}
+		long elapsed = Math.max(0, elapsedMillis);
+		recorder.recordValue(elapsed);
+		correctedRecorder.recordValue(Math.max(elapsed, correctedMillis));
+	}
+
+	/**
+	 * Drains figures recorded since the previous call and folds them into the run totals.
+	 *
+	 * @return interval summary
+	 */
+	Summary drain() {
+		interval = recorder.getIntervalHistogram(interval);
+		total.add(interval);
+		correctedInterval = correctedRecorder.getIntervalHistogram(correctedInterval);
+		correctedTotal.add(correctedInterval);
+		long totalCount = count.sum();
+		long totalErrors = errors.sum();
+		Summary summary = new Summary(
+			totalCount - drainedCount, totalErrors - drainedErrors, interval, correctedInterval);
+		drainedCount = totalCount;
+		drainedErrors = totalErrors;
+		return summary;
+	}
+
+	/**
+	 * @return summary of figures drained so far
+	 */
+	Summary getTotal() {
+		return new Summary(drainedCount, drainedErrors, total, correctedTotal);
+	}
+
+	static final class Summary {
+
+		final long count;
+		final long errors;
+		final Histogram histogram;
+		final Histogram corrected;
+
+		Summary(long count, long errors, Histogram histogram, Histogram corrected) {
+			this.count = count;
+			this.errors = errors;
+			this.histogram = histogram;
+			this.corrected = corrected;
+		}
+	}
+}
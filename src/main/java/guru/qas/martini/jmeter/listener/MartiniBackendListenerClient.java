@@ -0,0 +1,353 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.listener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import org.HdrHistogram.Histogram;
+import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.backend.AbstractBackendListenerClient;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import ch.qos.cal10n.IMessageConveyor;
+import guru.qas.martini.Martini;
+import guru.qas.martini.Messages;
+import guru.qas.martini.jmeter.SamplerContext;
+import guru.qas.martini.jmeter.sampler.MartiniSampleResult;
+import guru.qas.martini.result.MartiniResult;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static guru.qas.martini.jmeter.listener.MartiniBackendListenerClientMessages.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * BackendListenerClient keeping per-feature, per-scenario and per-step aggregates of Martini samples,
+ * allowing scenario-level reporting with JTL writing disabled.
+ * <p>
+ * Samples are aggregated on the sampler thread when BackendListener offers them; the sample is then dropped
+ * rather than queued. Samples taken outside a Martini scope are ignored. Only MartiniSampler results count as
+ * scenario executions, with step figures from the sub-results MartiniSampler attaches. Samples of other
+ * samplers within a Martini scope are aggregated as steps under their labels, so a scope of several plain
+ * samplers neither multiplies scenario counts nor reports their times as scenario latency.
+ * <p>
+ * Alongside raw elapsed time, each aggregate keeps latency corrected for coordinated omission: when a pacing
+ * timer placed an intended start in SamplerContext, scenario and feature latency is measured from it.
+ * <p>
+ * Every flushInterval seconds a summary of each aggregate sampled during the interval is logged and, when
+ * summaryFile is set, appended to it as CSV. Run totals are written at the end of the test.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniBackendListenerClient extends AbstractBackendListenerClient {
+
+	protected static final String PARAMETER_FLUSH_INTERVAL = "flushInterval";
+	protected static final String PARAMETER_SUMMARY_FILE = "summaryFile";
+	protected static final String PARAMETER_PERCENTILES = "percentiles";
+	protected static final String PARAMETER_SIGNIFICANT_DIGITS = "significantDigits";
+
+	protected static final String DEFAULT_FLUSH_INTERVAL = "10";
+	protected static final String DEFAULT_PERCENTILES = "50,90,95,99";
+	protected static final String DEFAULT_SIGNIFICANT_DIGITS = "2";
+
+	protected static final String WINDOW_INTERVAL = "interval";
+	protected static final String WINDOW_TOTAL = "total";
+
+	protected enum Level {
+		FEATURE, SCENARIO, STEP
+	}
+
+	protected LocLogger logger;
+	protected int significantDigits;
+	protected double[] percentiles;
+	protected Map<Level, ConcurrentMap<String, MartiniAggregate>> aggregates;
+	protected ScheduledExecutorService scheduler;
+	protected Path summaryPath;
+	protected BufferedWriter writer;
+
+	@Override
+	public Arguments getDefaultParameters() {
+		Arguments arguments = new Arguments();
+		arguments.addArgument(PARAMETER_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+		arguments.addArgument(PARAMETER_SUMMARY_FILE, "");
+		arguments.addArgument(PARAMETER_PERCENTILES, DEFAULT_PERCENTILES);
+		arguments.addArgument(PARAMETER_SIGNIFICANT_DIGITS, DEFAULT_SIGNIFICANT_DIGITS);
+		return arguments;
+	}
+
+	@Override
+	public void setupTest(BackendListenerContext context) throws Exception {
+		setUpLogger();
+
+		long flushInterval = context.getLongParameter(PARAMETER_FLUSH_INTERVAL, Long.parseLong(DEFAULT_FLUSH_INTERVAL));
+		checkArgument(flushInterval > 0, Messages.getMessage(INVALID_FLUSH_INTERVAL, flushInterval));
+
+		significantDigits = context.getIntParameter(
+			PARAMETER_SIGNIFICANT_DIGITS, Integer.parseInt(DEFAULT_SIGNIFICANT_DIGITS));
+		checkArgument(significantDigits >= 0 && significantDigits <= 5,
+			Messages.getMessage(INVALID_SIGNIFICANT_DIGITS, significantDigits));
+
+		percentiles = getPercentiles(context.getParameter(PARAMETER_PERCENTILES, DEFAULT_PERCENTILES));
+
+		aggregates = new ConcurrentHashMap<>();
+		Arrays.stream(Level.values()).forEach(level -> aggregates.put(level, new ConcurrentHashMap<>()));
+
+		setUpWriter(context.getParameter(PARAMETER_SUMMARY_FILE, "").trim());
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+			.setNameFormat(getClass().getSimpleName() + "-%d")
+			.setDaemon(true)
+			.build());
+		scheduler.scheduleAtFixedRate(this::flush, flushInterval, flushInterval, TimeUnit.SECONDS);
+		logger.info(STARTED, flushInterval);
+	}
+
+	protected void setUpLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory factory = new LocLoggerFactory(messageConveyor);
+		logger = factory.getLocLogger(this.getClass());
+	}
+
+	protected double[] getPercentiles(String parameter) {
+		return Arrays.stream(parameter.split(","))
+			.map(String::trim)
+			.filter(item -> !item.isEmpty())
+			.mapToDouble(item -> {
+				double percentile;
+				try {
+					percentile = Double.parseDouble(item);
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException(Messages.getMessage(INVALID_PERCENTILE, item), e);
+				}
+				checkArgument(percentile > 0 && percentile <= 100, Messages.getMessage(INVALID_PERCENTILE, item));
+				return percentile;
+			})
+			.toArray();
+	}
+
+	protected void setUpWriter(String file) throws IOException {
+		if (!file.isEmpty()) {
+			summaryPath = Paths.get(file);
+			boolean header = !Files.exists(summaryPath) || 0 == Files.size(summaryPath);
+			writer = Files.newBufferedWriter(summaryPath, UTF_8, CREATE, WRITE, APPEND);
+			if (header) {
+				writer.write(getHeader());
+				writer.newLine();
+			}
+		}
+	}
+
+	protected String getHeader() {
+		String columns = Arrays.stream(percentiles)
+			.mapToObj(percentile -> String.format("p%s", formatPercentile(percentile)))
+			.collect(Collectors.joining(","));
+		String corrected = Arrays.stream(percentiles)
+			.mapToObj(percentile -> String.format("correctedP%s", formatPercentile(percentile)))
+			.collect(Collectors.joining(","));
+		return "timeStamp,window,level,name,count,errors,mean,max," + columns + ",correctedMean,correctedMax," + corrected;
+	}
+
+	/**
+	 * Aggregates the sample on the calling sampler thread.
+	 *
+	 * @return null, as the sample has no further use for the BackendListener queue
+	 */
+	@Override
+	@Nullable
+	public SampleResult createSampleResult(BackendListenerContext context, SampleResult result) {
+		getMartini().ifPresent(martini -> record(martini, result));
+		return null;
+	}
+
+	protected Optional<Martini> getMartini() {
+		Optional<Martini> martini = SamplerContext.getOptionalMartiniResult().map(MartiniResult::getMartini);
+		return martini.isPresent() ? martini : SamplerContext.getOptionalMartini();
+	}
+
+	/**
+	 * A batched sample carries one MartiniSampleResult per Martini run; each is aggregated under its own
+	 * feature and scenario, its sub-results as steps. Time the batch waited past its intended start is added
+	 * to each Martini's corrected latency.
+	 */
+	protected void record(Martini martini, SampleResult result) {
+		if (result instanceof MartiniSampleResult) {
+			long delay = SamplerContext.getOptionalIntendedStart()
+				.map(intendedStart -> Math.max(0, result.getStartTime() - intendedStart))
+				.orElse(0L);
+			SampleResult[] subResults = result.getSubResults();
+			if (isBatch(subResults)) {
+				for (SampleResult subResult : subResults) {
+					MartiniSampleResult scenarioResult = MartiniSampleResult.class.cast(subResult);
+					record(scenarioResult.getMartini(), scenarioResult, delay);
+				}
+			}
+			else {
+				Martini sampled = MartiniSampleResult.class.cast(result).getMartini();
+				record(null == sampled ? martini : sampled, result, delay);
+			}
+		}
+		else {
+			getAggregate(Level.STEP, result.getSampleLabel()).record(result.getTime(), result.isSuccessful());
+		}
+	}
+
+	protected boolean isBatch(SampleResult[] subResults) {
+		return subResults.length > 0 && Arrays.stream(subResults)
+			.filter(MartiniSampleResult.class::isInstance)
+			.map(MartiniSampleResult.class::cast)
+			.filter(subResult -> null != subResult.getMartini())
+			.count() == subResults.length;
+	}
+
+	protected void record(Martini martini, SampleResult result, long delay) {
+		long elapsed = result.getTime();
+		long corrected = elapsed + delay;
+		boolean successful = result.isSuccessful();
+		getAggregate(Level.FEATURE, martini.getFeatureName()).record(elapsed, corrected, successful);
+		getAggregate(Level.SCENARIO, martini.getId()).record(elapsed, corrected, successful);
+		for (SampleResult subResult : result.getSubResults()) {
+			getAggregate(Level.STEP, subResult.getSampleLabel()).record(subResult.getTime(), subResult.isSuccessful());
+		}
+	}
+
+	protected MartiniAggregate getAggregate(Level level, String name) {
+		ConcurrentMap<String, MartiniAggregate> index = aggregates.get(level);
+		MartiniAggregate aggregate = index.get(name);
+		return null == aggregate ? index.computeIfAbsent(name, key -> new MartiniAggregate(significantDigits)) : aggregate;
+	}
+
+	@Override
+	public void handleSampleResults(List<SampleResult> results, BackendListenerContext context) {
+	}
+
+	protected synchronized void flush() {
+		long timestamp = System.currentTimeMillis();
+		aggregates.forEach((level, index) -> index.forEach((name, aggregate) -> {
+			MartiniAggregate.Summary summary = aggregate.drain();
+			if (summary.count > 0) {
+				report(timestamp, WINDOW_INTERVAL, level, name, summary);
+			}
+		}));
+		flushWriter();
+	}
+
+	protected void report(long timestamp, String window, Level level, String name, MartiniAggregate.Summary summary) {
+		Histogram histogram = summary.histogram;
+		Histogram corrected = summary.corrected;
+		String values = getPercentileValues(histogram);
+		String correctedValues = getPercentileValues(corrected);
+		logger.info(SUMMARY, window, level, name, summary.count, summary.errors,
+			String.format("%.1f", histogram.getMean()), histogram.getMaxValue(), values,
+			String.format("%.1f", corrected.getMean()), corrected.getMaxValue(), correctedValues);
+
+		if (null != writer) {
+			String line = String.format("%d,%s,%s,\"%s\",%d,%d,%.1f,%d,%s,%.1f,%d,%s",
+				timestamp, window, level, name.replace("\"", "\"\""), summary.count, summary.errors,
+				histogram.getMean(), histogram.getMaxValue(), values,
+				corrected.getMean(), corrected.getMaxValue(), correctedValues);
+			try {
+				writer.write(line);
+				writer.newLine();
+			}
+			catch (IOException e) {
+				logger.warn(WRITE_FAILED, summaryPath, e);
+				closeWriter();
+			}
+		}
+	}
+
+	protected String getPercentileValues(Histogram histogram) {
+		return Arrays.stream(percentiles)
+			.mapToObj(histogram::getValueAtPercentile)
+			.map(String::valueOf)
+			.collect(Collectors.joining(","));
+	}
+
+	protected void flushWriter() {
+		if (null != writer) {
+			try {
+				writer.flush();
+			}
+			catch (IOException e) {
+				logger.warn(WRITE_FAILED, summaryPath, e);
+				closeWriter();
+			}
+		}
+	}
+
+	protected String formatPercentile(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+	}
+
+	@Override
+	public void teardownTest(BackendListenerContext context) throws Exception {
+		if (null != scheduler) {
+			scheduler.shutdownNow();
+			scheduler.awaitTermination(1, TimeUnit.SECONDS);
+			scheduler = null;
+		}
+		if (null != aggregates) {
+			flush();
+			reportTotals();
+			closeWriter();
+			aggregates = null;
+		}
+		super.teardownTest(context);
+	}
+
+	protected synchronized void reportTotals() {
+		long timestamp = System.currentTimeMillis();
+		aggregates.forEach((level, index) -> index.forEach((name, aggregate) ->
+			report(timestamp, WINDOW_TOTAL, level, name, aggregate.getTotal())));
+		flushWriter();
+	}
+
+	protected synchronized void closeWriter() {
+		if (null != writer) {
+			try {
+				writer.close();
+			}
+			catch (IOException e) {
+				logger.warn(CLOSE_FAILED, summaryPath, e);
+			}
+			finally {
+				writer = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free monotonic counter.
+ */
+public final class Counter {
+
+	private final LongAdder adder;
+
+	Counter() {
+		adder = new LongAdder();
+	}
+
+	public void increment() {
+		adder.increment();
+	}
+
+	public void add(long delta) {
+		adder.add(delta);
+	}
+
+	public long getCount() {
+		return adder.sum();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nonnull;
+import javax.management.ObjectName;
+
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
+import com.google.common.collect.ImmutableMap;
+
+import ch.qos.cal10n.IMessageConveyor;
+import guru.qas.martini.Messages;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static guru.qas.martini.jmeter.metrics.DefaultMetricsRegistryMessages.*;
+
+/**
+ * Holds metrics in concurrent maps of lock-free instruments. When martini.metrics.jmx.enabled is true,
+ * the default, a read-only view is registered with the platform MBeanServer under
+ * guru.qas.martini:type=Metrics,name=&lt;Spring context display name&gt;.
+ *
+ * @see MBeanRegistrar
+ */
+@SuppressWarnings("WeakerAccess")
+@Configurable
+public class DefaultMetricsRegistry implements MetricsRegistry, InitializingBean, ApplicationContextAware {
+
+	protected final boolean jmxEnabled;
+	protected final ConcurrentHashMap<String, Counter> counters;
+	protected final ConcurrentHashMap<String, Timer> timers;
+	protected final ConcurrentHashMap<String, LongSupplier> gauges;
+
+	protected ApplicationContext springContext;
+	protected LocLogger logger;
+	protected ObjectName objectName;
+
+	@Autowired
+	protected DefaultMetricsRegistry(@Value("${martini.metrics.jmx.enabled:true}") boolean jmxEnabled) {
+		this.jmxEnabled = jmxEnabled;
+		counters = new ConcurrentHashMap<>();
+		timers = new ConcurrentHashMap<>();
+		gauges = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void setApplicationContext(@Nonnull ApplicationContext c) {
+		this.springContext = checkNotNull(c, "null ApplicationContext");
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		setUpLogger();
+		if (jmxEnabled) {
+			registerMBean();
+		}
+	}
+
+	protected void setUpLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory factory = new LocLoggerFactory(messageConveyor);
+		logger = factory.getLocLogger(this.getClass());
+	}
+
+	protected void registerMBean() {
+		String name = springContext.getDisplayName();
+		try {
+			objectName = MBeanRegistrar.register(new View(this), MetricsMXBean.class, "Metrics", name);
+			logger.info(REGISTERED, objectName);
+		}
+		catch (Exception e) {
+			logger.warn(REGISTRATION_FAILED, name, e);
+		}
+	}
+
+	@Override
+	public Counter counter(String name) {
+		checkNotNull(name, "null String");
+		return counters.computeIfAbsent(name, key -> new Counter());
+	}
+
+	@Override
+	public Timer timer(String name) {
+		checkNotNull(name, "null String");
+		return timers.computeIfAbsent(name, key -> new Timer());
+	}
+
+	@Override
+	public void gauge(String name, LongSupplier source) {
+		checkNotNull(name, "null String");
+		checkNotNull(source, "null LongSupplier");
+		gauges.put(name, source);
+	}
+
+	@Override
+	public Map<String, Counter> getCounters() {
+		return ImmutableMap.copyOf(counters);
+	}
+
+	@Override
+	public Map<String, Timer> getTimers() {
+		return ImmutableMap.copyOf(timers);
+	}
+
+	@Override
+	public Map<String, Long> getGauges() {
+		ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+		gauges.forEach((name, source) -> builder.put(name, source.getAsLong()));
+		return builder.build();
+	}
+
+	@Override
+	public void destroy() {
+		ObjectName registered = objectName;
+		objectName = null;
+		try {
+			MBeanRegistrar.unregister(registered);
+		}
+		catch (Exception e) {
+			logger.warn(UNREGISTRATION_FAILED, registered, e);
+		}
+	}
+
+	protected static class View implements MetricsMXBean {
+
+		private final MetricsRegistry registry;
+
+		protected View(MetricsRegistry registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public Map<String, Long> getCounters() {
+			return transform(registry.getCounters(), Counter::getCount);
+		}
+
+		@Override
+		public Map<String, Long> getGauges() {
+			return registry.getGauges();
+		}
+
+		@Override
+		public Map<String, Long> getTimerCounts() {
+			return transform(registry.getTimers(), Timer::getCount);
+		}
+
+		@Override
+		public Map<String, Long> getTimerTotalMicros() {
+			return transform(registry.getTimers(), timer -> timer.getTotal(TimeUnit.MICROSECONDS));
+		}
+
+		@Override
+		public Map<String, Long> getTimerMaxMicros() {
+			return transform(registry.getTimers(), timer -> timer.getMax(TimeUnit.MICROSECONDS));
+		}
+
+		protected <T> Map<String, Long> transform(Map<String, T> source, Function<T, Long> f) {
+			ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+			source.forEach((name, value) -> builder.put(name, f.apply(value)));
+			return builder.build();
+		}
+	}
+}
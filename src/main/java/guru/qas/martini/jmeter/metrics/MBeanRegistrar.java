@@ -0,0 +1,77 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.annotation.Nullable;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Registers read-only MXBeans under domain guru.qas.martini with the platform MBeanServer.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class MBeanRegistrar {
+
+	public static final String DOMAIN = "guru.qas.martini";
+
+	private MBeanRegistrar() {
+	}
+
+	/**
+	 * Registers view under guru.qas.martini:type=&lt;type&gt;,name=&lt;name&gt;,id=&lt;identity&gt;; the identity
+	 * distinguishes same-named test elements.
+	 *
+	 * @param view      MXBean implementation
+	 * @param mxBean    MXBean interface implemented by view
+	 * @param type      ObjectName type key, typically the test element's simple class name
+	 * @param name      ObjectName name key, typically the test element's name
+	 * @param <T>       MXBean interface type
+	 * @return registered ObjectName
+	 * @throws JMException when registration fails
+	 */
+	public static <T> ObjectName register(T view, Class<T> mxBean, String type, @Nullable String name)
+		throws JMException {
+		checkNotNull(view, "null Object");
+		checkNotNull(mxBean, "null Class");
+		checkNotNull(type, "null String");
+
+		String objectName = String.format("%s:type=%s,name=%s,id=%s",
+			DOMAIN, type, ObjectName.quote(String.valueOf(name)), Integer.toHexString(System.identityHashCode(view)));
+		ObjectName registered = new ObjectName(objectName);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(new StandardMBean(view, mxBean, true), registered);
+		return registered;
+	}
+
+	public static void unregister(@Nullable ObjectName name) throws JMException {
+		if (null != name) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			}
+			catch (InstanceNotFoundException ignored) {
+				// Already gone.
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+/**
+ * Names of metrics recorded by the extension.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class MetricNames {
+
+	public static final String SCENARIO_BEGIN = "martini.scenario.begin";
+	public static final String SCENARIO_END = "martini.scenario.end";
+	public static final String BEFORE_SCENARIO_PUBLISH = "martini.event.before.scenario.publish";
+	public static final String AFTER_SCENARIO_PUBLISH = "martini.event.after.scenario.publish";
+	public static final String SAMPLER_INTERRUPTED = "martini.sampler.interrupted";
+	public static final String SAMPLER_ELAPSED = "martini.sampler.elapsed";
+	public static final String SAMPLER_INTENDED_LATENCY = "martini.sampler.intended.latency";
+	public static final String SAMPLER_BATCHED = "martini.sampler.batched";
+	public static final String SETUP_FAILED = "martini.setup.failed";
+
+	private MetricNames() {
+	}
+
+	public static String getFilterDispatched(String controllerName) {
+		return String.format("martini.filter.%s.dispatched", controllerName);
+	}
+
+	public static String getFilterInterrupted(String controllerName) {
+		return String.format("martini.filter.%s.interrupted", controllerName);
+	}
+
+	public static String getFilterLockWait(String controllerName) {
+		return String.format("martini.filter.%s.lock.wait", controllerName);
+	}
+
+	public static String getScopeBegun(String controllerName) {
+		return String.format("martini.scope.%s.begun", controllerName);
+	}
+
+	public static String getScopeEnded(String controllerName) {
+		return String.format("martini.scope.%s.ended", controllerName);
+	}
+
+	public static String getScopeIdle(String controllerName) {
+		return String.format("martini.scope.%s.idle", controllerName);
+	}
+
+	public static String getGateSkipped(String gateName) {
+		return String.format("martini.gate.%s.skipped", gateName);
+	}
+
+	public static String getGateWait(String gateName) {
+		return String.format("martini.gate.%s.wait", gateName);
+	}
+
+	public static String getStep(String stepLabel) {
+		return String.format("martini.step.%s", stepLabel);
+	}
+
+	public static String getStepCached(String stepLabel) {
+		return String.format("martini.step.%s.cached", stepLabel);
+	}
+
+	public static String getStepCpu(String stepDefinition) {
+		return String.format("martini.step.%s.cpu", stepDefinition);
+	}
+
+	public static String getStepAllocated(String stepDefinition) {
+		return String.format("martini.step.%s.allocated", stepDefinition);
+	}
+}
@@ -0,0 +1,56 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * In-process registry of the extension's own counters, gauges and timers.
+ * <p>
+ * Callers on hot paths should look up a Counter or Timer once and keep the reference.
+ */
+public interface MetricsRegistry extends DisposableBean {
+
+	Counter counter(String name);
+
+	Timer timer(String name);
+
+	/**
+	 * Registers a gauge, replacing any gauge previously registered under the same name.
+	 *
+	 * @param name   gauge name
+	 * @param source sampled each time the gauge is read
+	 */
+	void gauge(String name, LongSupplier source);
+
+	Map<String, Counter> getCounters();
+
+	Map<String, Timer> getTimers();
+
+	Map<String, Long> getGauges();
+
+	/**
+	 * Should release any held resources, e.g. JMX registrations.
+	 *
+	 * @throws Exception when problem encountered
+	 */
+	@Override
+	void destroy() throws Exception;
+}
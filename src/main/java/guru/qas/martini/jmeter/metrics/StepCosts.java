@@ -0,0 +1,117 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Client-side cost of executing each step definition: the executing thread's CPU time and allocated bytes
+ * measured around the step method. Definitions are named by declaring class, method and parameter types,
+ * e.g. com.example.Steps.login(String), so overloads stay apart. Each definition is also published to the
+ * MetricsRegistry as gauges martini.step.&lt;definition&gt;.cpu and martini.step.&lt;definition&gt;.allocated.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StepCosts {
+
+	protected final MetricsRegistry metrics;
+	protected final ConcurrentHashMap<Method, StepCost> costs;
+
+	public StepCosts(MetricsRegistry metrics) {
+		this.metrics = checkNotNull(metrics, "null MetricsRegistry");
+		this.costs = new ConcurrentHashMap<>();
+	}
+
+	public StepCost get(Method method) {
+		StepCost cost = costs.get(method);
+		return null == cost ? costs.computeIfAbsent(method, this::newCost) : cost;
+	}
+
+	protected StepCost newCost(Method method) {
+		String parameters = Arrays.stream(method.getParameterTypes())
+			.map(Class::getSimpleName)
+			.collect(Collectors.joining(","));
+		String definition = String.format("%s.%s(%s)", method.getDeclaringClass().getName(), method.getName(), parameters);
+		StepCost cost = new StepCost(definition);
+		metrics.gauge(MetricNames.getStepCpu(definition), cost::getCpuNanos);
+		metrics.gauge(MetricNames.getStepAllocated(definition), cost::getAllocatedBytes);
+		return cost;
+	}
+
+	/**
+	 * @param limit maximum number of definitions returned
+	 * @return definitions consuming the most CPU, most first
+	 */
+	public List<StepCost> getHottest(int limit) {
+		return costs.values().stream()
+			.sorted(Comparator.comparingLong(StepCost::getCpuNanos).reversed())
+			.limit(limit)
+			.collect(Collectors.toList());
+	}
+
+	public static final class StepCost {
+
+		private final String definition;
+		private final LongAdder executions;
+		private final LongAdder cpuNanos;
+		private final LongAdder allocatedBytes;
+
+		private StepCost(String definition) {
+			this.definition = definition;
+			this.executions = new LongAdder();
+			this.cpuNanos = new LongAdder();
+			this.allocatedBytes = new LongAdder();
+		}
+
+		/**
+		 * @param cpu       CPU nanoseconds consumed, negative if unavailable
+		 * @param allocated bytes allocated, negative if unavailable
+		 */
+		public void record(long cpu, long allocated) {
+			executions.increment();
+			if (cpu > 0) {
+				cpuNanos.add(cpu);
+			}
+			if (allocated > 0) {
+				allocatedBytes.add(allocated);
+			}
+		}
+
+		public String getDefinition() {
+			return definition;
+		}
+
+		public long getExecutions() {
+			return executions.sum();
+		}
+
+		public long getCpuNanos() {
+			return cpuNanos.sum();
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes.sum();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the current thread's CPU time and allocated bytes where the JVM supports and enables them.
+ * <p>
+ * The extension is built for Java 11, so getCurrentThreadAllocatedBytes(), added in Java 14, is looked up
+ * reflectively. It reads the thread's TLAB counters directly. Before Java 14 allocation is read by thread id,
+ * which on Java 11 allocates and searches the list of live threads on every call.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class ThreadUsage {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final com.sun.management.ThreadMXBean HOTSPOT_THREADS = getHotSpotThreads();
+	private static final boolean CPU_TIME = isCpuTimeAvailable();
+	private static final boolean ALLOCATION = isAllocationAvailable();
+	private static final MethodHandle CURRENT_THREAD_ALLOCATED_BYTES = lookUpCurrentThreadAllocatedBytes();
+
+	private ThreadUsage() {
+	}
+
+	private static com.sun.management.ThreadMXBean getHotSpotThreads() {
+		return THREADS instanceof com.sun.management.ThreadMXBean
+			? (com.sun.management.ThreadMXBean) THREADS
+			: null;
+	}
+
+	private static boolean isCpuTimeAvailable() {
+		try {
+			return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+		}
+		catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	private static boolean isAllocationAvailable() {
+		try {
+			return null != HOTSPOT_THREADS
+				&& HOTSPOT_THREADS.isThreadAllocatedMemorySupported()
+				&& HOTSPOT_THREADS.isThreadAllocatedMemoryEnabled();
+		}
+		catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	private static MethodHandle lookUpCurrentThreadAllocatedBytes() {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			MethodType type = MethodType.methodType(long.class);
+			Class<?> hotSpotThreads = com.sun.management.ThreadMXBean.class;
+			MethodHandle handle = lookup.findVirtual(hotSpotThreads, "getCurrentThreadAllocatedBytes", type);
+			return ALLOCATION ? handle.bindTo(HOTSPOT_THREADS) : null;
+		}
+		catch (Throwable e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return CPU time consumed by the current thread in nanoseconds, or -1 if unavailable
+	 */
+	public static long getCpuNanos() {
+		return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+	}
+
+	/**
+	 * @return bytes allocated by the current thread, or -1 if unavailable
+	 */
+	public static long getAllocatedBytes() {
+		if (null != CURRENT_THREAD_ALLOCATED_BYTES) {
+			try {
+				return (long) CURRENT_THREAD_ALLOCATED_BYTES.invokeExact();
+			}
+			catch (Throwable e) {
+				return -1;
+			}
+		}
+		return ALLOCATION ? HOTSPOT_THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free timer tracking count, total and maximum duration.
+ */
+public final class Timer {
+
+	private final LongAdder count;
+	private final LongAdder totalNanos;
+	private final LongAccumulator maxNanos;
+
+	Timer() {
+		count = new LongAdder();
+		totalNanos = new LongAdder();
+		maxNanos = new LongAccumulator(Math::max, 0);
+	}
+
+	public void record(long duration, TimeUnit unit) {
+		long nanos = unit.toNanos(duration);
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public void recordNanos(long nanos) {
+		record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotal(TimeUnit unit) {
+		return unit.convert(totalNanos.sum(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getMax(TimeUnit unit) {
+		return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public double getMean(TimeUnit unit) {
+		long n = count.sum();
+		return 0 == n ? 0 : (double) totalNanos.sum() / n / unit.toNanos(1);
+	}
+}
@@ -37,26 +37,43 @@ import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.Environment;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
+import guru.qas.martini.Messages;
 import guru.qas.martini.event.SuiteIdentifier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-
+import static guru.qas.martini.jmeter.preprocessor.JMeterSuiteIdentifierMessages.INVALID_SUITE_ID;
+
+/**
+ * Identifies the executing suite. By default each JVM generates its own random id; in a distributed
+ * run the controller may hand every remote engine the same id by setting JMeter property
+ * "martini.suite.identifier.id" (e.g. -Gmartini.suite.identifier.id=...) so that each node reports
+ * its partial results under one suite.
+ * <p>
+ * Environment variables are captured on first request. Comma-separated property
+ * "martini.suite.identifier.environment.prefixes" restricts the snapshot to keys starting with one of
+ * the listed prefixes; when unset, all enumerable properties are captured.
+ */
 @SuppressWarnings("WeakerAccess")
 @Configurable
 public class JMeterSuiteIdentifier implements SuiteIdentifier, InitializingBean, ApplicationContextAware {
 
-	protected final UUID id;
+	public static final String PROPERTY_SUITE_ID = "martini.suite.identifier.id";
+	public static final String PROPERTY_ENVIRONMENT_PREFIXES = "martini.suite.identifier.environment.prefixes";
+
+	protected UUID id;
 	protected String name;
 	protected Long startTimestamp;
 	protected String hostname;
 	protected String hostAddress;
 	protected String username;
 	protected ImmutableSet<String> profiles;
-	protected Map<String, String> environmentVariables;
+	protected ImmutableSet<String> environmentPrefixes;
+	protected volatile ImmutableMap<String, String> environmentVariables;
 
 	protected ApplicationContext springContext;
 
@@ -97,11 +114,20 @@ public class JMeterSuiteIdentifier implements SuiteIdentifier, InitializingBean,
 
 	@Override
 	public Map<String, String> getEnvironmentVariables() {
-		return environmentVariables;
+		ImmutableMap<String, String> snapshot = environmentVariables;
+		if (null == snapshot) {
+			synchronized (this) {
+				snapshot = environmentVariables;
+				if (null == snapshot) {
+					snapshot = getEnvironmentSnapshot();
+					environmentVariables = snapshot;
+				}
+			}
+		}
+		return snapshot;
 	}
 
 	protected JMeterSuiteIdentifier() {
-		this.id = UUID.randomUUID();
 	}
 
 	@Override
@@ -111,13 +137,30 @@ public class JMeterSuiteIdentifier implements SuiteIdentifier, InitializingBean,
 
 	@Override
 	public void afterPropertiesSet() {
+		setUpId();
 		name = springContext.getDisplayName();
 		startTimestamp = JMeterContextService.getTestStartTime();
 		hostname = JMeterUtils.getLocalHostName();
 		hostAddress = JMeterUtils.getLocalHostIP();
 		username = System.getProperty("user.name");
 		setUpProfiles();
-		setUpEnvironmentVariables();
+		setUpEnvironmentPrefixes();
+	}
+
+	protected void setUpId() {
+		Environment environment = springContext.getEnvironment();
+		String configured = environment.getProperty(PROPERTY_SUITE_ID, JMeterUtils.getProperty(PROPERTY_SUITE_ID));
+		String trimmed = null == configured ? "" : configured.trim();
+		id = trimmed.isEmpty() ? UUID.randomUUID() : parseId(trimmed);
+	}
+
+	protected UUID parseId(String value) {
+		try {
+			return UUID.fromString(value);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(Messages.getMessage(INVALID_SUITE_ID, PROPERTY_SUITE_ID, value), e);
+		}
 	}
 
 	protected void setUpProfiles() {
@@ -127,7 +170,21 @@ public class JMeterSuiteIdentifier implements SuiteIdentifier, InitializingBean,
 		profiles = ImmutableSet.copyOf(profileList);
 	}
 
+	protected void setUpEnvironmentPrefixes() {
+		Environment environment = springContext.getEnvironment();
+		String configured = environment.getProperty(PROPERTY_ENVIRONMENT_PREFIXES, "");
+		Iterable<String> split = Splitter.on(',').trimResults().omitEmptyStrings().split(configured);
+		environmentPrefixes = ImmutableSet.copyOf(split);
+	}
+
+	/**
+	 * Forces the environment snapshot to be taken now rather than on first request.
+	 */
 	public void setUpEnvironmentVariables() {
+		getEnvironmentVariables();
+	}
+
+	protected ImmutableMap<String, String> getEnvironmentSnapshot() {
 		Environment environment = springContext.getEnvironment();
 		Map<String, String> index = new LinkedHashMap<>();
 
@@ -138,14 +195,20 @@ public class JMeterSuiteIdentifier implements SuiteIdentifier, InitializingBean,
 				.map(EnumerablePropertySource.class::cast)
 				.forEach(s -> {
 					String[] propertyNames = s.getPropertyNames();
-					Arrays.stream(propertyNames).forEach(key -> {
+					Arrays.stream(propertyNames).filter(this::isIncluded).forEach(key -> {
 						Object property = s.getProperty(key);
-						index.put(key, null == property ? null : property.toString());
+						if (null != property) {
+							index.put(key, property.toString());
+						}
 					});
 				});
 		}
 
-		environmentVariables = ImmutableMap.copyOf(index);
+		return ImmutableMap.copyOf(index);
+	}
+
+	protected boolean isIncluded(String key) {
+		return environmentPrefixes.isEmpty() || environmentPrefixes.stream().anyMatch(key::startsWith);
 	}
 
 	@Override
@@ -0,0 +1,64 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.preprocessor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+@SuppressWarnings("WeakerAccess")
+public class SpringContextView implements SpringContextMXBean {
+
+	protected final ConfigurableApplicationContext context;
+	protected final long refreshMillis;
+
+	public SpringContextView(ConfigurableApplicationContext context, long refreshMillis) {
+		this.context = context;
+		this.refreshMillis = refreshMillis;
+	}
+
+	@Override
+	public String getDisplayName() {
+		return context.getDisplayName();
+	}
+
+	@Override
+	public long getStartupDate() {
+		return context.getStartupDate();
+	}
+
+	@Override
+	public long getRefreshMillis() {
+		return refreshMillis;
+	}
+
+	@Override
+	public int getBeanDefinitionCount() {
+		return context.getBeanDefinitionCount();
+	}
+
+	@Override
+	public List<String> getActiveProfiles() {
+		return Arrays.asList(context.getEnvironment().getActiveProfiles());
+	}
+
+	@Override
+	public boolean isActive() {
+		return context.isActive();
+	}
+}
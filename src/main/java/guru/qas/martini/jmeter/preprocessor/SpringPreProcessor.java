@@ -19,14 +19,19 @@ package guru.qas.martini.jmeter.preprocessor;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.apache.jmeter.config.Argument;
 import org.apache.jmeter.engine.event.LoopIterationEvent;
 import org.apache.jmeter.testbeans.BeanInfoSupport;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testelement.TestIterationListener;
+import org.apache.jmeter.testelement.ThreadListener;
 
 import org.apache.jmeter.util.JMeterUtils;
 import org.springframework.context.i18n.LocaleContextHolder;
@@ -38,6 +43,8 @@ import guru.qas.martini.Messages;
 import guru.qas.martini.jmeter.ArgumentListPropertySource;
 import guru.qas.martini.jmeter.SamplerContext;
 import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.metrics.MBeanRegistrar;
+import guru.qas.martini.jmeter.resource.JMeterThreadScope;
 
 import static com.google.common.base.Preconditions.*;
 import static guru.qas.martini.jmeter.preprocessor.SpringPreProcessorMessages.*;
@@ -51,14 +58,18 @@ import static org.springframework.core.env.StandardEnvironment.SYSTEM_ENVIRONMEN
  * <p>
  * One enabled SpringPreProcessor should be configured at the top-level of the test plan before
  * any ThreadGroup configurations.
+ * <p>
+ * Registers Spring scope "jmeterThread", closing each thread's resources once the thread finishes.
  */
 @SuppressWarnings("WeakerAccess")
 public class SpringPreProcessor
 	extends AbstractPreProcessor
-	implements Serializable, Cloneable, TestBean, TestIterationListener, Thread.UncaughtExceptionHandler {
+	implements Serializable, Cloneable, TestBean, TestIterationListener, ThreadListener,
+	Thread.UncaughtExceptionHandler {
 
 	private static final long serialVersionUID = -1582951167073002597L;
 	protected static final AtomicReference<ClassPathXmlApplicationContext> CONTEXT_REF = new AtomicReference<>(null);
+	protected static final AtomicReference<ObjectName> OBJECT_NAME_REF = new AtomicReference<>(null);
 
 	// These must match field names exactly.
 	protected static final String PROPERTY_SPRING_CONFIG_LOCATIONS = "configurationLocations";
@@ -128,9 +139,27 @@ public class SpringPreProcessor
 		checkState(CONTEXT_REF.compareAndSet(null, springContext), Messages.getMessage(DUPLICATE_SPRING_CONTEXT));
 		springContext.setDisplayName(this.getName());
 		setEnvironment(springContext);
+		springContext.addBeanFactoryPostProcessor(
+			beanFactory -> beanFactory.registerScope(JMeterThreadScope.NAME, new JMeterThreadScope()));
+		long start = System.nanoTime();
 		springContext.refresh();
+		long refreshMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		logger.info(SPRING_CONTEXT_REFRESHED, getName(), refreshMillis, springContext.getBeanDefinitionCount());
 		springContext.registerShutdownHook();
 		Variables.set(springContext);
+		registerMBean(springContext, refreshMillis);
+	}
+
+	protected void registerMBean(ClassPathXmlApplicationContext springContext, long refreshMillis) {
+		SpringContextView view = new SpringContextView(springContext, refreshMillis);
+		try {
+			ObjectName objectName = MBeanRegistrar.register(
+				view, SpringContextMXBean.class, SpringPreProcessor.class.getSimpleName(), getName());
+			OBJECT_NAME_REF.set(objectName);
+		}
+		catch (JMException e) {
+			logger.warn(MBEAN_REGISTRATION_FAILED, getName(), e);
+		}
 	}
 
 	protected void setEnvironment(ClassPathXmlApplicationContext context) {
@@ -153,6 +182,19 @@ public class SpringPreProcessor
 		Variables.set(springContext);
 	}
 
+	@Override
+	public void threadStarted() {
+	}
+
+	/**
+	 * Closes resources the thread opened in the JMeter thread scope, also for plans without a Martini Scope
+	 * Controller; left to the scope controller if one of its scenarios is still executing.
+	 */
+	@Override
+	public void threadFinished() {
+		Variables.closeThreadResources();
+	}
+
 	@Override
 	public void process() {
 		ClassPathXmlApplicationContext springContext = CONTEXT_REF.get();
@@ -165,12 +207,23 @@ public class SpringPreProcessor
 	}
 
 	private void tearDownSpring() {
+		unregisterMBean();
 		ClassPathXmlApplicationContext springContext = CONTEXT_REF.getAndSet(null);
 		if (null != springContext) {
 			springContext.close();
 		}
 	}
 
+	protected void unregisterMBean() {
+		ObjectName objectName = OBJECT_NAME_REF.getAndSet(null);
+		try {
+			MBeanRegistrar.unregister(objectName);
+		}
+		catch (JMException e) {
+			logger.warn(MBEAN_UNREGISTRATION_FAILED, objectName, e);
+		}
+	}
+
 	@Override
 	public void uncaughtException(Thread t, Throwable e) {
 		super.tearDown();
@@ -26,4 +26,7 @@ public enum SpringPreProcessorMessages {
 	MISSING_PROPERTY,
 	EMPTY_PROPERTY,
 	DUPLICATE_SPRING_CONTEXT,
+	SPRING_CONTEXT_REFRESHED,
+	MBEAN_REGISTRATION_FAILED,
+	MBEAN_UNREGISTRATION_FAILED,
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.resource;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import guru.qas.martini.jmeter.Variables;
+
+/**
+ * Spring scope tied to the executing JMeter thread. A bean in this scope is created the first time a thread
+ * uses it and destroyed, through its usual destruction callbacks, when that thread finishes. Injected into
+ * singleton step classes through a scoped proxy, each thread transparently sees its own instance, so
+ * clients, connections and serializers may be reused across iterations without ThreadLocals.
+ *
+ * @see JMeterThreadScoped
+ */
+public class JMeterThreadScope implements Scope {
+
+	public static final String NAME = "jmeterThread";
+
+	@Override
+	public Object get(String name, ObjectFactory<?> objectFactory) {
+		ThreadResources resources = Variables.getThreadResources();
+		return resources.get(name, objectFactory::getObject);
+	}
+
+	@Override
+	public Object remove(String name) {
+		ThreadResources resources = Variables.getThreadResources();
+		return resources.remove(name);
+	}
+
+	@Override
+	public void registerDestructionCallback(String name, Runnable callback) {
+		ThreadResources resources = Variables.getThreadResources();
+		resources.registerDestructionCallback(name, callback);
+	}
+
+	@Override
+	public Object resolveContextualObject(String key) {
+		return null;
+	}
+
+	@Override
+	public String getConversationId() {
+		return Thread.currentThread().getName();
+	}
+}
@@ -0,0 +1,127 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import ch.qos.cal10n.IMessageConveyor;
+import guru.qas.martini.Messages;
+
+import static com.google.common.base.Preconditions.*;
+import static guru.qas.martini.jmeter.resource.ThreadResourcesMessages.*;
+
+/**
+ * Resources opened by a single JMeter thread, kept in its JMeterVariables and closed, in reverse order of
+ * opening, when the thread finishes. Executing scenarios hold the resources open, so that the thread's last
+ * scenario ends before they are closed; once closed, no resource is opened again. Not thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ThreadResources implements AutoCloseable {
+
+	protected final Map<String, Object> resources;
+	protected final Map<String, Runnable> destructionCallbacks;
+	protected int holds;
+	protected boolean closed;
+
+	public ThreadResources() {
+		resources = Maps.newLinkedHashMap();
+		destructionCallbacks = Maps.newHashMap();
+	}
+
+	/**
+	 * @param name    resource name
+	 * @param factory opens the resource the first time this thread uses it
+	 * @return this thread's resource
+	 */
+	public Object get(String name, Supplier<?> factory) {
+		Object resource = resources.get(name);
+		if (null == resource) {
+			checkState(!closed, Messages.getMessage(REOPEN_REFUSED, name, Thread.currentThread().getName()));
+			resource = checkNotNull(factory.get(), "null resource %s", name);
+			resources.put(name, resource);
+		}
+		return resource;
+	}
+
+	public Object remove(String name) {
+		destructionCallbacks.remove(name);
+		return resources.remove(name);
+	}
+
+	public void registerDestructionCallback(String name, Runnable callback) {
+		destructionCallbacks.put(name, checkNotNull(callback, "null Runnable"));
+	}
+
+	public int size() {
+		return resources.size();
+	}
+
+	/**
+	 * Holds the resources open until a matching release, e.g. while a scenario executes.
+	 */
+	public void hold() {
+		holds++;
+	}
+
+	public void release() {
+		holds = Math.max(0, holds - 1);
+	}
+
+	public boolean isHeld() {
+		return holds > 0;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		List<String> names = Lists.reverse(Lists.newArrayList(resources.keySet()));
+		String threadName = Thread.currentThread().getName();
+		for (String name : names) {
+			Runnable callback = destructionCallbacks.remove(name);
+			resources.remove(name);
+			try {
+				if (null != callback) {
+					callback.run();
+				}
+			}
+			catch (RuntimeException e) {
+				getLogger().warn(CLOSE_FAILED, name, threadName, e);
+			}
+		}
+		if (!names.isEmpty()) {
+			getLogger().debug(CLOSED, names.size(), threadName);
+		}
+	}
+
+	protected LocLogger getLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory factory = new LocLoggerFactory(messageConveyor);
+		return factory.getLocLogger(this.getClass());
+	}
+}
@@ -0,0 +1,348 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.result;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.google.common.util.concurrent.Monitor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import ch.qos.cal10n.IMessageConveyor;
+import gherkin.ast.Step;
+import guru.qas.martini.Messages;
+import guru.qas.martini.event.Status;
+import guru.qas.martini.event.SuiteIdentifier;
+import guru.qas.martini.result.MartiniResult;
+import guru.qas.martini.result.StepResult;
+
+import static com.google.common.base.Preconditions.*;
+import static guru.qas.martini.jmeter.result.BinaryMartiniResultSinkMessages.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Streams each MartiniResult to an append-only file of length-prefixed binary records.
+ * <p>
+ * Each calling thread encodes its record into its own reusable buffer, so only copying the finished record
+ * into the shared direct buffer is serialized. The shared buffer is written to the FileChannel when full,
+ * every flush interval by a background thread, and on destroy; many scenarios therefore share a single
+ * write (group commit). A flush interval of 0 writes every record immediately. Set martini.result.sink.sync
+ * to also force each write to storage.
+ * <p>
+ * A new file starts with a header, big-endian:
+ * <pre>
+ * int    magic number 0x4D52544E ("MRTN")
+ * short  format version, currently 1
+ * </pre>
+ * An existing file is appended to only if its header matches. Each record follows, big-endian:
+ * <pre>
+ * int    record length in bytes, excluding this field
+ * long   suite id, most significant bits
+ * long   suite id, least significant bits
+ * string Martini id
+ * byte   scenario Status ordinal, -1 when absent
+ * int    step count
+ * per step:
+ *   string keyword
+ *   string text
+ *   byte   Status ordinal, -1 when absent
+ *   long   start timestamp, -1 when absent
+ *   long   execution time in milliseconds, -1 when absent
+ * </pre>
+ * Strings are written as an int byte count followed by UTF-8 bytes.
+ */
+@SuppressWarnings("WeakerAccess")
+@Configurable
+public class BinaryMartiniResultSink implements MartiniResultSink, InitializingBean {
+
+	protected static final int MAGIC = 0x4D52544E;
+	protected static final short VERSION = 1;
+	protected static final int HEADER_BYTES = Integer.BYTES + Short.BYTES;
+	protected static final int RECORD_BYTES = 4096;
+
+	protected static final byte ABSENT_STATUS = -1;
+	protected static final long ABSENT = -1L;
+
+	protected final SuiteIdentifier suiteIdentifier;
+	protected final Path path;
+	protected final int bufferSize;
+	protected final long flushIntervalMs;
+	protected final boolean sync;
+	protected final ThreadLocal<ByteBuffer> records;
+
+	protected LocLogger logger;
+	protected Monitor monitor;
+	protected FileChannel channel;
+	protected ByteBuffer buffer;
+	protected ScheduledExecutorService scheduler;
+
+	@Autowired
+	protected BinaryMartiniResultSink(
+		SuiteIdentifier suiteIdentifier,
+		@Value("${martini.result.sink.file:martiniResults.bin}") String file,
+		@Value("${martini.result.sink.buffer.bytes:1048576}") int bufferSize,
+		@Value("${martini.result.sink.flush.interval.ms:1000}") long flushIntervalMs,
+		@Value("${martini.result.sink.sync:false}") boolean sync
+	) {
+		this.suiteIdentifier = checkNotNull(suiteIdentifier, "null SuiteIdentifier");
+		checkNotNull(file, "null String");
+		checkArgument(!file.trim().isEmpty(), "empty String");
+		checkArgument(bufferSize > 0, "buffer size must be positive");
+		checkArgument(flushIntervalMs >= 0, "flush interval must not be negative");
+		this.path = Paths.get(file.trim());
+		this.bufferSize = bufferSize;
+		this.flushIntervalMs = flushIntervalMs;
+		this.sync = sync;
+		this.records = ThreadLocal.withInitial(() -> ByteBuffer.allocate(Math.min(RECORD_BYTES, bufferSize)));
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		setUpLogger();
+		monitor = new Monitor();
+		channel = FileChannel.open(path, CREATE, READ, WRITE);
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		setUpHeader();
+		channel.position(channel.size());
+		setUpScheduler();
+		logger.info(OPENED, path);
+	}
+
+	protected void setUpLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory factory = new LocLoggerFactory(messageConveyor);
+		logger = factory.getLocLogger(this.getClass());
+	}
+
+	protected void setUpHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		if (0 == channel.size()) {
+			header.putInt(MAGIC).putShort(VERSION).flip();
+			write(header);
+		}
+		else {
+			int read = 0;
+			while (header.hasRemaining() && read >= 0) {
+				read = channel.read(header, header.position());
+			}
+			header.flip();
+			boolean compatible = HEADER_BYTES == header.remaining()
+				&& MAGIC == header.getInt()
+				&& VERSION == header.getShort();
+			if (!compatible) {
+				close();
+				throw new IllegalStateException(Messages.getMessage(INCOMPATIBLE_FILE, path, VERSION));
+			}
+		}
+	}
+
+	protected void setUpScheduler() {
+		if (flushIntervalMs > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+				.setNameFormat(getClass().getSimpleName() + "-%d")
+				.setDaemon(true)
+				.build());
+			scheduler.scheduleWithFixedDelay(this::flushScheduled, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void accept(MartiniResult result) {
+		checkNotNull(result, "null MartiniResult");
+		ByteBuffer record = getRecord(result);
+		monitor.enter();
+		try {
+			if (null != channel) {
+				append(record);
+				if (0 == flushIntervalMs) {
+					flush();
+				}
+			}
+		}
+		catch (IOException e) {
+			logger.warn(WRITE_FAILED, path, e);
+			close();
+		}
+		finally {
+			monitor.leave();
+		}
+	}
+
+	/**
+	 * Encodes on the calling thread, into its reusable buffer, growing it for larger records.
+	 *
+	 * @return encoded record, ready to be read
+	 */
+	protected ByteBuffer getRecord(MartiniResult result) {
+		ByteBuffer record = records.get();
+		while (true) {
+			record.clear();
+			try {
+				encode(record, result);
+				record.flip();
+				return record;
+			}
+			catch (BufferOverflowException e) {
+				int capacity = record.capacity();
+				checkState(capacity < Integer.MAX_VALUE, "MartiniResult too large to encode");
+				record = ByteBuffer.allocate(capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : capacity * 2);
+				if (record.capacity() <= bufferSize) {
+					records.set(record);
+				}
+			}
+		}
+	}
+
+	protected void append(ByteBuffer record) throws IOException {
+		if (record.remaining() > buffer.remaining()) {
+			flush();
+		}
+		if (record.remaining() > buffer.remaining()) {
+			write(record);
+		}
+		else {
+			buffer.put(record);
+		}
+	}
+
+	protected void encode(ByteBuffer target, MartiniResult result) {
+		int lengthPosition = target.position();
+		target.putInt(0);
+
+		UUID id = suiteIdentifier.getId();
+		target.putLong(id.getMostSignificantBits());
+		target.putLong(id.getLeastSignificantBits());
+		putString(target, result.getMartini().getId());
+		putStatus(target, result.getStatus().orElse(null));
+
+		List<StepResult> stepResults = result.getStepResults();
+		target.putInt(stepResults.size());
+		for (StepResult stepResult : stepResults) {
+			Step step = stepResult.getStep();
+			putString(target, step.getKeyword().trim());
+			putString(target, step.getText().trim());
+			putStatus(target, stepResult.getStatus().orElse(null));
+			target.putLong(stepResult.getStartTimestamp().orElse(ABSENT));
+			target.putLong(stepResult.getExecutionTime(TimeUnit.MILLISECONDS).orElse(ABSENT));
+		}
+
+		int length = target.position() - lengthPosition - Integer.BYTES;
+		target.putInt(lengthPosition, length);
+	}
+
+	protected void putString(ByteBuffer target, @Nullable String s) {
+		byte[] bytes = null == s ? new byte[0] : s.getBytes(UTF_8);
+		target.putInt(bytes.length);
+		target.put(bytes);
+	}
+
+	protected void putStatus(ByteBuffer target, @Nullable Status status) {
+		target.put(null == status ? ABSENT_STATUS : (byte) status.ordinal());
+	}
+
+	/**
+	 * Writes whatever has been buffered since the last write, so a quiet run's tail reaches the file within
+	 * one flush interval rather than at close.
+	 */
+	protected void flushScheduled() {
+		monitor.enter();
+		try {
+			if (null != channel && buffer.position() > 0) {
+				flush();
+			}
+		}
+		catch (IOException e) {
+			logger.warn(WRITE_FAILED, path, e);
+			close();
+		}
+		finally {
+			monitor.leave();
+		}
+	}
+
+	protected void flush() throws IOException {
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	protected void write(ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+		if (sync) {
+			channel.force(false);
+		}
+	}
+
+	protected void close() {
+		FileChannel open = channel;
+		channel = null;
+		if (null != open) {
+			try {
+				open.close();
+			}
+			catch (IOException e) {
+				logger.warn(CLOSE_FAILED, path, e);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		ScheduledExecutorService executor = scheduler;
+		scheduler = null;
+		if (null != executor) {
+			executor.shutdownNow();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+
+		monitor.enter();
+		try {
+			if (null != channel) {
+				flush();
+				channel.force(false);
+			}
+		}
+		catch (IOException e) {
+			logger.warn(WRITE_FAILED, path, e);
+		}
+		finally {
+			close();
+			monitor.leave();
+		}
+	}
+}
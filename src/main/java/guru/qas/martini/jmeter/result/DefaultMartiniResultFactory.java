@@ -0,0 +1,56 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.result;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.event.SuiteIdentifier;
+import guru.qas.martini.result.DefaultMartiniResult;
+import guru.qas.martini.result.MartiniResult;
+import guru.qas.martini.tag.Categories;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Builds each MartiniResult through DefaultMartiniResult's builder, resolving the Martini's categorizations
+ * against Categories as the builder does.
+ * <p>
+ * Results are not built from per-Martini templates: the builder offers no way to supply categorizations
+ * resolved earlier, so a template could save nothing but a builder allocation.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DefaultMartiniResultFactory implements MartiniResultFactory {
+
+	protected final SuiteIdentifier suiteIdentifier;
+	protected final Categories categories;
+
+	@Autowired
+	protected DefaultMartiniResultFactory(SuiteIdentifier suiteIdentifier, Categories categories) {
+		this.suiteIdentifier = checkNotNull(suiteIdentifier, "null SuiteIdentifier");
+		this.categories = checkNotNull(categories, "null Categories");
+	}
+
+	@Override
+	public MartiniResult newResult(Martini martini) {
+		checkNotNull(martini, "null Martini");
+		return DefaultMartiniResult.builder()
+			.setMartiniSuiteIdentifier(suiteIdentifier)
+			.setMartini(martini)
+			.build(categories);
+	}
+}
@@ -0,0 +1,40 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.result;
+
+import org.springframework.beans.factory.annotation.Configurable;
+
+import guru.qas.martini.result.MartiniResult;
+
+/**
+ * Discards results.
+ */
+@SuppressWarnings("WeakerAccess")
+@Configurable
+public class DefaultMartiniResultSink implements MartiniResultSink {
+
+	protected DefaultMartiniResultSink() {
+	}
+
+	@Override
+	public void accept(MartiniResult result) {
+	}
+
+	@Override
+	public void destroy() {
+	}
+}
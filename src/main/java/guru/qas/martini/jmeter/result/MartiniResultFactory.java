@@ -0,0 +1,35 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.result;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.result.MartiniResult;
+
+/**
+ * Creates the MartiniResult for each scenario execution.
+ */
+public interface MartiniResultFactory {
+
+	/**
+	 * Called once per scenario, from the executing JMeter thread. MartiniFilterIndex also calls it once per
+	 * Martini to read the Martini's categorizations.
+	 *
+	 * @param martini scenario about to execute
+	 * @return new result carrying this execution's mutable state
+	 */
+	MartiniResult newResult(Martini martini);
+}
@@ -0,0 +1,42 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.result;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import guru.qas.martini.result.MartiniResult;
+
+/**
+ * Receives each completed MartiniResult in addition to JMeter SampleResults and EventManager listeners.
+ */
+public interface MartiniResultSink extends DisposableBean {
+
+	/**
+	 * Called once per completed scenario, from the executing JMeter thread.
+	 *
+	 * @param result completed scenario result
+	 */
+	void accept(MartiniResult result);
+
+	/**
+	 * Should flush and release any held resources.
+	 *
+	 * @throws Exception when problem encountered
+	 */
+	@Override
+	void destroy() throws Exception;
+}
@@ -38,6 +38,9 @@ import guru.qas.martini.Messages;
 import guru.qas.martini.ResourceBundleMessageFunction;
 import guru.qas.martini.jmeter.DefaultExceptionReporter;
 import guru.qas.martini.jmeter.ExceptionReporter;
+import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.metrics.MetricNames;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
 
 import static com.google.common.base.Preconditions.checkState;
 import static guru.qas.martini.jmeter.sampler.AbstractGenericSamplerMessages.*;
@@ -106,6 +109,7 @@ public abstract class AbstractGenericSampler extends AbstractSampler
 			}
 		}
 		catch (Exception e) {
+			recordSetUpFailure();
 			JMeterContextService.endTest();
 			if (null == reporter) {
 				reporter = new DefaultExceptionReporter();
@@ -117,6 +121,18 @@ public abstract class AbstractGenericSampler extends AbstractSampler
 		}
 	}
 
+	protected void recordSetUpFailure() {
+		try {
+			Variables.getOptionalSpringApplicationContext().ifPresent(springContext -> {
+				MetricsRegistry metrics = springContext.getBean(MetricsRegistry.class);
+				metrics.counter(MetricNames.SETUP_FAILED).increment();
+			});
+		}
+		catch (Exception ignored) {
+			// Metrics are best-effort while start up is failing.
+		}
+	}
+
 	protected void setUpLogger() {
 		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
 		LocLoggerFactory loggerFactory = new LocLoggerFactory(messageConveyor);
@@ -152,7 +168,7 @@ public abstract class AbstractGenericSampler extends AbstractSampler
 
 	@Override
 	public SampleResult sample(Entry entry) { // Entry is always null.
-		SampleResult result = new SampleResult();
+		SampleResult result = newSampleResult();
 		result.setSampleLabel(super.getName());
 		try {
 			assertNotInterrupted();
@@ -166,6 +182,10 @@ public abstract class AbstractGenericSampler extends AbstractSampler
 		return result;
 	}
 
+	protected SampleResult newSampleResult() {
+		return new SampleResult();
+	}
+
 	protected void assertNotInterrupted() {
 		checkState(!isInterrupted(), Messages.getMessage(INTERRUPTED));
 	}
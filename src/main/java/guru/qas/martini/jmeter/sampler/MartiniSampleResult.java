@@ -0,0 +1,48 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package guru.qas.martini.jmeter.sampler;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import guru.qas.martini.Martini;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Result of MartiniSampler running a Martini, either as the sample itself or as one Martini of a batch, so
+ * listeners can attribute it to its own feature and scenario.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniSampleResult extends SampleResult {
+
+	private static final long serialVersionUID = -6402157826405731978L;
+
+	protected final transient Martini martini;
+
+	public MartiniSampleResult(Martini martini) {
+		super();
+		this.martini = checkNotNull(martini, "null Martini");
+	}
+
+	/**
+	 * @return the Martini reported, or null once the result has been serialized to a remote listener
+	 */
+	public Martini getMartini() {
+		return martini;
+	}
+}
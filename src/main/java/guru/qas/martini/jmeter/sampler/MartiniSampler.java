@@ -17,10 +17,16 @@ limitations under the License.
 package guru.qas.martini.jmeter.sampler;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-
-import java.util.concurrent.Callable;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
 
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testbeans.BeanInfoSupport;
@@ -30,13 +36,29 @@ import org.springframework.beans.factory.annotation.Configurable;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import com.google.common.collect.Lists;
+
 import gherkin.ast.Step;
 import guru.qas.martini.Martini;
+import guru.qas.martini.Messages;
 import guru.qas.martini.event.Status;
 import guru.qas.martini.jmeter.SamplerContext;
+import guru.qas.martini.jmeter.Variables;
+import guru.qas.martini.jmeter.controller.MartiniBatchSource;
+import guru.qas.martini.jmeter.controller.MartiniScenarioScope;
+import guru.qas.martini.jmeter.jfr.SampleEvent;
+import guru.qas.martini.jmeter.jfr.StepEvent;
+import guru.qas.martini.jmeter.metrics.Counter;
+import guru.qas.martini.jmeter.metrics.MetricNames;
+import guru.qas.martini.jmeter.metrics.MetricsRegistry;
+import guru.qas.martini.jmeter.metrics.StepCosts;
+import guru.qas.martini.jmeter.metrics.Timer;
 import guru.qas.martini.result.MartiniResult;
 import guru.qas.martini.result.StepResult;
-import guru.qas.martini.runtime.harness.MartiniCallable;
+import guru.qas.martini.step.StepImplementation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static guru.qas.martini.jmeter.sampler.MartiniSamplerMessages.*;
 
 @SuppressWarnings({"RedundantThrows", "WeakerAccess"})
 @Configurable
@@ -45,54 +67,328 @@ public class MartiniSampler extends AbstractGenericSampler
 
 	private static final long serialVersionUID = -4970886293526746276L;
 
+	// These must match field names exactly.
+	protected static final String PROPERTY_INTENDED_START_IGNORED = "intendedStartIgnored";
+	protected static final String PROPERTY_BATCH_SIZE = "batchSize";
+	protected static final String PROPERTY_STEP_COSTS_IGNORED = "stepCostsIgnored";
+
+	protected static final int STEP_COSTS_REPORTED = 10;
+
+	protected static final String CACHED_MESSAGE = "Cached";
+
+	// Serialized.
+	protected boolean intendedStartIgnored;
+	protected String batchSize;
+	protected boolean stepCostsIgnored;
+
+	// Shared.
+	protected transient int batchLimit;
+	protected transient StepCosts stepCosts;
+
+	// Per-thread.
+	protected transient MetricsRegistry metrics;
+	protected transient Timer elapsedTimer;
+	protected transient Timer intendedLatencyTimer;
+	protected transient Counter batchedCounter;
+	protected transient Map<Step, StepMetrics> stepMetrics;
+
 	public MartiniSampler() {
 		super();
 	}
 
+	public boolean isIntendedStartIgnored() {
+		return intendedStartIgnored;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setIntendedStartIgnored(boolean b) {
+		this.intendedStartIgnored = b;
+	}
+
+	public String getBatchSize() {
+		return batchSize;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setBatchSize(String s) {
+		batchSize = null == s ? "" : s.trim();
+	}
+
+	public boolean isStepCostsIgnored() {
+		return stepCostsIgnored;
+	}
+
+	@SuppressWarnings("unused") // Accessed via introspection.
+	public void setStepCostsIgnored(boolean b) {
+		this.stepCostsIgnored = b;
+	}
+
 	@Override
 	protected BeanInfoSupport getBeanInfoSupport() throws Exception {
-		return new MartininSamplerBeanInfo();
+		return new MartiniSamplerBeanInfo();
 	}
 
 	@Override
 	protected void completeSetup() throws Exception {
+		batchLimit = parseBatchSize();
+		if (!isStepCostsIgnored()) {
+			ConfigurableApplicationContext springContext = Variables.getSpringApplicationContext();
+			stepCosts = new StepCosts(springContext.getBean(MetricsRegistry.class));
+		}
+	}
+
+	protected int parseBatchSize() {
+		String value = null == batchSize || batchSize.isEmpty() ? "1" : batchSize;
+		int parsed;
+		try {
+			parsed = Integer.parseInt(value);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.getMessage(INVALID_BATCH_SIZE, PROPERTY_BATCH_SIZE, value), e);
+		}
+		checkArgument(parsed > 0, Messages.getMessage(INVALID_BATCH_SIZE, PROPERTY_BATCH_SIZE, value));
+		return parsed;
+	}
+
+	@Override
+	public Object clone() {
+		Object o = super.clone();
+		MartiniSampler clone = MartiniSampler.class.cast(o);
+		clone.batchLimit = batchLimit;
+		clone.stepCosts = stepCosts;
+		return clone;
+	}
+
+	@Override
+	public boolean interrupt() {
+		boolean interrupted = super.interrupt();
+		MetricsRegistry registry = metrics;
+		if (interrupted && null != registry) {
+			registry.counter(MetricNames.SAMPLER_INTERRUPTED).increment();
+		}
+		return interrupted;
+	}
+
+	/**
+	 * Marks the sample as a Martini's, so listeners can tell scenario samples from other samplers'.
+	 */
+	@Override
+	protected SampleResult newSampleResult() {
+		return SamplerContext.getOptionalMartini()
+			.<SampleResult>map(MartiniSampleResult::new)
+			.orElseGet(super::newSampleResult);
 	}
 
 	@Override
 	protected void completeSample(SampleResult result) throws Exception {
+		if (null == metrics) {
+			setUpMetrics();
+		}
+
 		Martini martini = SamplerContext.getMartini();
-		setLabel(result, martini);
+		Optional<MartiniBatchSource> batchSource = batchLimit > 1 ? SamplerContext.getOptionalBatchSource() : Optional.empty();
+		if (batchSource.isPresent()) {
+			completeBatch(result, martini, batchSource.get());
+		}
+		else {
+			execute(result, martini);
+		}
+		reportIntendedStart(result);
+	}
+
+	protected void setUpMetrics() {
+		ConfigurableApplicationContext springContext = SamplerContext.getSpringApplicationContext();
+		metrics = springContext.getBean(MetricsRegistry.class);
+		elapsedTimer = metrics.timer(MetricNames.SAMPLER_ELAPSED);
+		intendedLatencyTimer = metrics.timer(MetricNames.SAMPLER_INTENDED_LATENCY);
+		batchedCounter = metrics.counter(MetricNames.SAMPLER_BATCHED);
+		stepMetrics = new HashMap<>();
+	}
+
+	/**
+	 * Runs the dispatched Martini and up to batchSize - 1 more taken from the enclosing controller back to
+	 * back, spreading JMeter's per-sample overhead across them. Each Martini is reported as a sub-result
+	 * labelled with its scenario name, its steps beneath it; the sample succeeds only if every Martini passed.
+	 * An enclosing MartiniScopeController is asked to begin a scenario for each further Martini. An interrupt
+	 * ends the batch after the running Martini; results of the Martinis completed are kept.
+	 */
+	protected void completeBatch(SampleResult result, Martini first, MartiniBatchSource source) throws Exception {
+		Optional<MartiniScenarioScope> scope = SamplerContext.getOptionalScenarioScope();
+		List<SampleResult> scenarioResults = Lists.newArrayListWithCapacity(batchLimit);
+		result.sampleStart();
+		try {
+			Martini martini = first;
+			while (null != martini) {
+				SampleResult scenarioResult = new MartiniSampleResult(martini);
+				run(scenarioResult, martini);
+				scenarioResults.add(scenarioResult);
+				martini = getNextInBatch(source, scenarioResults.size());
+				if (null != martini) {
+					Martini next = martini;
+					scope.ifPresent(s -> s.nextScenario(next));
+				}
+			}
+		}
+		finally {
+			result.sampleEnd();
+			scenarioResults.forEach(scenarioResult -> result.addSubResult(scenarioResult, false));
+		}
 
-		Callable<MartiniResult> callable = getCallable(martini);
+		boolean interrupted = super.isInterrupted();
+		result.setSuccessful(!interrupted && scenarioResults.stream().allMatch(SampleResult::isSuccessful));
+		if (interrupted) {
+			result.setResponseMessage(Messages.getMessage(AbstractGenericSamplerMessages.INTERRUPTED));
+		}
+		batchedCounter.add(scenarioResults.size());
+	}
+
+	@Nullable
+	protected Martini getNextInBatch(MartiniBatchSource source, int completed) {
+		boolean more = completed < batchLimit && !super.isInterrupted();
+		return more ? source.nextInBatch().orElse(null) : null;
+	}
+
+	protected void execute(SampleResult result, Martini martini) throws Exception {
+		super.assertNotInterrupted();
+		run(result, martini);
 		super.assertNotInterrupted();
+	}
+
+	protected void run(SampleResult result, Martini martini) throws Exception {
+		setLabel(result, martini);
+
+		MartiniSamplerCallable callable = getCallable(martini);
+		SampleEvent event = new SampleEvent();
+		event.begin();
 		result.sampleStart();
 		MartiniResult martiniResult = callable.call();
 		result.sampleEnd();
+		event.end();
 
-		super.assertNotInterrupted();
-		setSubResults(result, martiniResult);
+		commit(event, martini, martiniResult);
+		BitSet cached = getCached(martini, callable, martiniResult);
+		recordStepTimes(martiniResult, cached);
+		setSubResults(result, martiniResult, cached);
 		setSuccessful(result, martiniResult);
 	}
 
+	protected void commit(SampleEvent event, Martini martini, MartiniResult martiniResult) {
+		if (event.shouldCommit()) {
+			event.martiniId = martini.getId();
+			event.threadName = Thread.currentThread().getName();
+			event.iteration = Variables.getIteration();
+			event.status = martiniResult.getStatus().map(Enum::name).orElse(null);
+			event.commit();
+		}
+
+		StepEvent stepEvent = new StepEvent();
+		if (stepEvent.isEnabled()) {
+			String threadName = Thread.currentThread().getName();
+			int iteration = Variables.getIteration();
+			for (StepResult stepResult : martiniResult.getStepResults()) {
+				StepEvent e = new StepEvent();
+				e.martiniId = martini.getId();
+				e.threadName = threadName;
+				e.iteration = iteration;
+				e.step = getLabel(stepResult);
+				e.status = stepResult.getStatus().map(Enum::name).orElse(null);
+				e.stepStart = stepResult.getStartTimestamp().orElse(0L);
+				e.stepDuration = stepResult.getExecutionTime(TimeUnit.MILLISECONDS).orElse(0L);
+				e.commit();
+			}
+		}
+	}
+
+	/**
+	 * Records the raw elapsed time. Unless ignored, also publishes the intended start set by a pacing timer or
+	 * schedule as JMeter variable martini.intended.start, next to the sample's actual start, and records the
+	 * corrected latency from intended start through sample end.
+	 */
+	protected void reportIntendedStart(SampleResult result) {
+		elapsedTimer.record(result.getTime(), TimeUnit.MILLISECONDS);
+		if (!isIntendedStartIgnored()) {
+			Long intendedStart = SamplerContext.getOptionalIntendedStart().orElse(null);
+			Variables.setIntendedStart(intendedStart);
+			if (null != intendedStart) {
+				long corrected = Math.max(result.getTime(), result.getEndTime() - intendedStart);
+				intendedLatencyTimer.record(corrected, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Matches step results to the callable's step method invocations, in order, to find those served from
+	 * the thread's StepMemo. Skipped steps have no invocation and so never match.
+	 *
+	 * @return indexes into martiniResult.getStepResults() of cached steps
+	 */
+	protected BitSet getCached(Martini martini, MartiniSamplerCallable callable, MartiniResult martiniResult) {
+		BitSet cached = new BitSet();
+		List<Method> invocations = callable.getInvocations();
+		if (IntStream.range(0, invocations.size()).anyMatch(callable::isCached)) {
+			Map<Step, StepImplementation> stepIndex = martini.getStepIndex();
+			List<StepResult> stepResults = martiniResult.getStepResults();
+			int ordinal = 0;
+			for (int i = 0; i < stepResults.size() && ordinal < invocations.size(); i++) {
+				StepImplementation implementation = stepIndex.get(stepResults.get(i).getStep());
+				Method method = null == implementation ? null : implementation.getMethod().orElse(null);
+				if (null != method && method.equals(invocations.get(ordinal))) {
+					if (callable.isCached(ordinal)) {
+						cached.set(i);
+					}
+					ordinal++;
+				}
+			}
+		}
+		return cached;
+	}
+
+	protected void recordStepTimes(MartiniResult martiniResult, BitSet cached) {
+		List<StepResult> stepResults = martiniResult.getStepResults();
+		for (int i = 0; i < stepResults.size(); i++) {
+			StepResult stepResult = stepResults.get(i);
+			StepMetrics m = getStepMetrics(stepResult);
+			if (cached.get(i)) {
+				m.getCachedCounter().increment();
+			}
+			else {
+				stepResult.getExecutionTime(TimeUnit.MILLISECONDS)
+					.ifPresent(elapsed -> m.timer.record(elapsed, TimeUnit.MILLISECONDS));
+			}
+		}
+	}
+
+	/**
+	 * Steps are shared by every execution of their Martini, so their label and metrics are resolved once
+	 * per thread rather than formatted and looked up on every sample.
+	 */
+	protected StepMetrics getStepMetrics(StepResult stepResult) {
+		return stepMetrics.computeIfAbsent(stepResult.getStep(), step -> new StepMetrics(metrics, getLabel(stepResult)));
+	}
+
 	protected void setLabel(SampleResult result, Martini martini) {
 		String scenarioName = martini.getScenarioName();
 		result.setSampleLabel(scenarioName);
 	}
 
-	protected Callable<MartiniResult> getCallable(Martini martini) {
+	protected MartiniSamplerCallable getCallable(Martini martini) {
 		ConfigurableApplicationContext springContext = SamplerContext.getSpringApplicationContext();
-		MartiniCallable callable = new MartiniCallable(martini);
+		MartiniSamplerCallable callable = new MartiniSamplerCallable(martini, Variables.getStepMemo(), stepCosts);
 		AutowireCapableBeanFactory beanFactory = springContext.getAutowireCapableBeanFactory();
 		beanFactory.autowireBean(callable);
 		beanFactory.initializeBean(callable, callable.getClass().getName());
 		return callable;
 	}
 
-	protected void setSubResults(SampleResult parent, MartiniResult martiniResult) {
+	protected void setSubResults(SampleResult parent, MartiniResult martiniResult, BitSet cached) {
 		List<StepResult> stepResults = martiniResult.getStepResults();
-		stepResults.stream()
-			.map(this::getSubResult)
-			.forEach(subResult -> parent.addSubResult(subResult, false));
+		for (int i = 0; i < stepResults.size(); i++) {
+			SampleResult subResult = getSubResult(stepResults.get(i));
+			if (cached.get(i)) {
+				subResult.setResponseMessage(CACHED_MESSAGE);
+			}
+			parent.addSubResult(subResult, false);
+		}
 	}
 
 	protected SampleResult getSubResult(StepResult stepResult) {
@@ -104,11 +400,15 @@ public class MartiniSampler extends AbstractGenericSampler
 	}
 
 	protected void setLabel(SampleResult subResult, StepResult stepResult) {
+		String label = getStepMetrics(stepResult).label;
+		subResult.setSampleLabel(label);
+	}
+
+	protected String getLabel(StepResult stepResult) {
 		Step step = stepResult.getStep();
 		String keyword = step.getKeyword().trim();
 		String text = step.getText().trim();
-		String label = String.format("%s %s", keyword, text);
-		subResult.setSampleLabel(label);
+		return String.format("%s %s", keyword, text);
 	}
 
 	protected void setExecutionTime(SampleResult subResult, StepResult stepResult) {
@@ -134,7 +434,55 @@ public class MartiniSampler extends AbstractGenericSampler
 		result.setSuccessful(Status.PASSED == status);
 	}
 
+	/**
+	 * Logs the step definitions that consumed the most load generator CPU, with their allocation, so
+	 * client-side hot spots stand out from steps merely waiting on the system under test.
+	 */
+	protected void reportStepCosts() {
+		StepCosts costs = stepCosts;
+		if (null != costs) {
+			for (StepCosts.StepCost cost : costs.getHottest(STEP_COSTS_REPORTED)) {
+				long executions = Math.max(1, cost.getExecutions());
+				logger.info(STEP_COST,
+					cost.getDefinition(),
+					cost.getExecutions(),
+					TimeUnit.NANOSECONDS.toMillis(cost.getCpuNanos()),
+					TimeUnit.NANOSECONDS.toMicros(cost.getCpuNanos() / executions),
+					cost.getAllocatedBytes() / executions);
+			}
+		}
+	}
+
 	@Override
 	protected void beginTearDown() throws Exception {
+		reportStepCosts();
+		stepCosts = null;
+		batchLimit = 0;
+		metrics = null;
+		elapsedTimer = null;
+		intendedLatencyTimer = null;
+		batchedCounter = null;
+		stepMetrics = null;
+	}
+
+	protected static final class StepMetrics {
+
+		protected final MetricsRegistry registry;
+		protected final String label;
+		protected final Timer timer;
+		protected Counter cachedCounter;
+
+		protected StepMetrics(MetricsRegistry registry, String label) {
+			this.registry = registry;
+			this.label = label;
+			this.timer = registry.timer(MetricNames.getStep(label));
+		}
+
+		protected Counter getCachedCounter() {
+			if (null == cachedCounter) {
+				cachedCounter = registry.counter(MetricNames.getStepCached(label));
+			}
+			return cachedCounter;
+		}
 	}
 }
\ No newline at end of file
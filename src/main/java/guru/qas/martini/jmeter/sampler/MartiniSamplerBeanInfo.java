@@ -0,0 +1,77 @@
+/*
+Copyright 2018 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.sampler;
+
+import java.beans.BeanDescriptor;
+import java.beans.PropertyDescriptor;
+import java.util.function.Function;
+
+import org.apache.jmeter.testbeans.BeanInfoSupport;
+
+import guru.qas.martini.ResourceBundleMessageFunction;
+
+import static guru.qas.martini.jmeter.sampler.MartiniSampler.*;
+
+@SuppressWarnings("WeakerAccess")
+public class MartiniSamplerBeanInfo extends BeanInfoSupport {
+
+	protected Function<String, String> messageFunction;
+
+	public MartiniSamplerBeanInfo() {
+		super(MartiniSampler.class);
+		init();
+	}
+
+	protected void init() {
+		setUpMessageFunction();
+		setUpProperties();
+	}
+
+	protected void setUpMessageFunction() {
+		BeanDescriptor descriptor = super.getBeanDescriptor();
+		messageFunction = ResourceBundleMessageFunction.getInstance(descriptor);
+	}
+
+	protected void setUpProperties() {
+		String label = messageFunction.apply("options.label");
+		createPropertyGroup(label, new String[]{
+			PROPERTY_INTENDED_START_IGNORED,
+			PROPERTY_BATCH_SIZE,
+			PROPERTY_STEP_COSTS_IGNORED});
+		setIntendedStartIgnoredDescriptor();
+		setBatchSizeDescriptor();
+		setStepCostsIgnoredDescriptor();
+	}
+
+	protected void setIntendedStartIgnoredDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_INTENDED_START_IGNORED);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, Boolean.FALSE);
+	}
+
+	protected void setBatchSizeDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_BATCH_SIZE);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, "1");
+	}
+
+	protected void setStepCostsIgnoredDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_STEP_COSTS_IGNORED);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, Boolean.FALSE);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.sampler;
+
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Lists;
+
+import gherkin.ast.Step;
+import guru.qas.martini.Martini;
+import guru.qas.martini.jmeter.metrics.StepCosts;
+import guru.qas.martini.jmeter.metrics.ThreadUsage;
+import guru.qas.martini.jmeter.step.Memoized;
+import guru.qas.martini.jmeter.step.StepArguments;
+import guru.qas.martini.jmeter.step.StepInvoker;
+import guru.qas.martini.jmeter.step.StepInvokers;
+import guru.qas.martini.jmeter.step.StepMemo;
+import guru.qas.martini.runtime.harness.MartiniCallable;
+import guru.qas.martini.step.StepImplementation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs a Martini on behalf of MartiniSampler. Steps take arguments pre-bound in StepArguments where
+ * available and are invoked through compiled StepInvokers rather than reflection; steps annotated @Memoized
+ * are served from the executing thread's StepMemo where possible, and each step method invocation is noted
+ * in order so the sampler can tell which sub-results were served from cache. When StepCosts are given, the
+ * thread's CPU time and allocation are measured around each invoked step method.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniSamplerCallable extends MartiniCallable {
+
+	protected final StepMemo memo;
+	protected final List<Method> invocations;
+	protected final BitSet cached;
+	protected final StepCosts costs;
+	protected StepInvokers stepInvokers;
+	protected StepArguments stepArguments;
+
+	@Autowired
+	void set(StepInvokers i) {
+		this.stepInvokers = i;
+	}
+
+	@Autowired
+	void set(StepArguments a) {
+		this.stepArguments = a;
+	}
+
+	public MartiniSamplerCallable(Martini martini, StepMemo memo, @Nullable StepCosts costs) {
+		super(martini);
+		this.memo = checkNotNull(memo, "null StepMemo");
+		this.costs = costs;
+		this.invocations = Lists.newArrayList();
+		this.cached = new BitSet();
+	}
+
+	@Override
+	protected Object[] getArguments(Step step, Method method, StepImplementation implementation) {
+		Optional<Object[]> bound = null == stepArguments ? Optional.empty() : stepArguments.get(step);
+		return bound.isPresent() ? bound.get() : super.getArguments(step, method, implementation);
+	}
+
+	@Override
+	protected Object execute(Method method, Object bean, Object[] arguments) throws Exception {
+		Optional<Memoized> memoized = memo.getMemoized(method);
+		Optional<StepMemo.Entry> entry = memoized.isPresent() ? memo.get(method, arguments) : Optional.empty();
+
+		int ordinal = invocations.size();
+		invocations.add(method);
+
+		Object value;
+		if (entry.isPresent()) {
+			cached.set(ordinal);
+			value = entry.get().getValue();
+		}
+		else {
+			value = invoke(method, bean, arguments);
+			if (memoized.isPresent()) {
+				memo.put(method, arguments, memoized.get(), value);
+			}
+		}
+		return value;
+	}
+
+	protected Object invoke(Method method, Object bean, Object[] arguments) throws Exception {
+		StepInvoker invoker = null == stepInvokers ? null : stepInvokers.get(method);
+		long cpu = null == costs ? 0 : ThreadUsage.getCpuNanos();
+		long allocated = null == costs ? 0 : ThreadUsage.getAllocatedBytes();
+		try {
+			return null == invoker ? super.execute(method, bean, arguments) : invoker.invoke(bean, arguments);
+		}
+		finally {
+			if (null != costs) {
+				cpu = ThreadUsage.getCpuNanos() - cpu;
+				allocated = ThreadUsage.getAllocatedBytes() - allocated;
+				costs.get(method).record(cpu, allocated);
+			}
+		}
+	}
+
+	/**
+	 * @return step methods invoked, in order
+	 */
+	public List<Method> getInvocations() {
+		return invocations;
+	}
+
+	/**
+	 * @param ordinal index into getInvocations()
+	 * @return true if that invocation was served from the thread's StepMemo
+	 */
+	public boolean isCached(int ordinal) {
+		return cached.get(ordinal);
+	}
+}
@@ -1,5 +1,5 @@
 /*
-Copyright 2018 Penny Rohr Curich
+Copyright 2019 Penny Rohr Curich
 
 Licensed under the Apache License, Version 2.0 (the "License");
 you may not use this file except in compliance with the License.
@@ -16,12 +16,13 @@ limitations under the License.
 
 package guru.qas.martini.jmeter.sampler;
 
-import org.apache.jmeter.testbeans.BeanInfoSupport;
+import ch.qos.cal10n.BaseName;
+import ch.qos.cal10n.Locale;
+import ch.qos.cal10n.LocaleData;
 
-@SuppressWarnings("WeakerAccess")
-public class MartininSamplerBeanInfo extends BeanInfoSupport {
-
-	public MartininSamplerBeanInfo() {
-		super(MartiniSampler.class);
-	}
-}
\ No newline at end of file
+@BaseName("guru.qas.martini.jmeter.sampler.martiniSamplerMessages")
+@LocaleData({@Locale("en")})
+public enum MartiniSamplerMessages {
+	INVALID_BATCH_SIZE,
+	STEP_COST
+}
@@ -0,0 +1,41 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.spring.step;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import guru.qas.martini.jmeter.step.DefaultStepArguments;
+import guru.qas.martini.jmeter.step.StepArguments;
+
+@Configuration
+@Lazy
+public class StepArgumentsConfiguration {
+
+	@Bean
+	StepArguments getStepArguments(
+		AutowireCapableBeanFactory beanFactory,
+		@Value("${martini.step.arguments.impl:#{null}}")
+			Class<? extends StepArguments> implementation
+	) {
+		implementation = null == implementation ? DefaultStepArguments.class : implementation;
+		return beanFactory.createBean(implementation);
+	}
+}
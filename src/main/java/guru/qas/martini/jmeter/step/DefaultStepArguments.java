@@ -0,0 +1,112 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import com.google.common.collect.ImmutableSet;
+
+import gherkin.ast.Step;
+import guru.qas.martini.Martini;
+import guru.qas.martini.step.StepImplementation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Matches each step's text against its implementation's pattern and converts the captured groups once per
+ * suite. Only steps whose parameters are all of immutable types are bound, so one argument array may be
+ * shared by every execution on every thread; other steps are bound by the harness as they execute.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DefaultStepArguments implements StepArguments {
+
+	protected static final ImmutableSet<Class<?>> IMMUTABLE_TYPES = ImmutableSet.of(
+		String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+		Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class);
+
+	protected final ConversionService conversionService;
+	protected final Map<Step, Object[]> index;
+
+	@Autowired
+	protected DefaultStepArguments(ObjectProvider<ConversionService> conversionService) {
+		this.conversionService = conversionService.getIfAvailable(DefaultConversionService::getSharedInstance);
+		this.index = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void bind(Collection<Martini> martinis) {
+		checkNotNull(martinis, "null Collection");
+		martinis.stream()
+			.flatMap(martini -> martini.getStepIndex().entrySet().stream())
+			.filter(entry -> !index.containsKey(entry.getKey()))
+			.forEach(entry -> bind(entry.getKey(), entry.getValue()).ifPresent(bound -> index.put(entry.getKey(), bound)));
+	}
+
+	protected Optional<Object[]> bind(Step step, StepImplementation implementation) {
+		Method method = implementation.getMethod().orElse(null);
+		Pattern pattern = implementation.getPattern().orElse(null);
+		return null == method || null == pattern || null != step.getArgument()
+			? Optional.empty()
+			: bind(step.getText(), method, pattern);
+	}
+
+	protected Optional<Object[]> bind(String text, Method method, Pattern pattern) {
+		Class<?>[] types = method.getParameterTypes();
+		Matcher matcher = pattern.matcher(text);
+		boolean bindable = matcher.matches() && matcher.groupCount() == types.length;
+
+		Object[] arguments = new Object[types.length];
+		for (int i = 0; bindable && i < types.length; i++) {
+			Class<?> type = types[i];
+			String group = matcher.group(i + 1);
+			bindable = isImmutable(type) && (null != group || !type.isPrimitive());
+			if (bindable && null != group) {
+				try {
+					arguments[i] = conversionService.convert(group, type);
+				}
+				catch (ConversionException e) {
+					bindable = false;
+				}
+			}
+		}
+		return bindable ? Optional.of(arguments) : Optional.empty();
+	}
+
+	protected boolean isImmutable(Class<?> type) {
+		return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type);
+	}
+
+	@Override
+	public Optional<Object[]> get(Step step) {
+		return null == step ? Optional.empty() : Optional.ofNullable(index.get(step));
+	}
+}
@@ -0,0 +1,180 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.primitives.Primitives;
+
+import guru.qas.martini.Martini;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compiles each step method once into a MethodHandle adapted to (Object, Object[])Object, so steps run
+ * without Method.invoke's per-call access checks. StepInvokersBenchmark compares the two.
+ * <p>
+ * As with Method.invoke, a bean or arguments the method cannot accept raise an IllegalArgumentException, a
+ * null bean for an instance method a NullPointerException, and anything the step throws is wrapped in an
+ * InvocationTargetException. Methods this extension may not access, such as those of non-public step
+ * classes, fall back to Method.invoke.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DefaultStepInvokers implements StepInvokers {
+
+	/**
+	 * Primitive widening conversions Method.invoke applies to unboxed arguments, JLS 5.1.2.
+	 */
+	protected static final ImmutableMultimap<Class<?>, Class<?>> WIDENING = ImmutableMultimap.<Class<?>, Class<?>>builder()
+		.putAll(byte.class, short.class, int.class, long.class, float.class, double.class)
+		.putAll(short.class, int.class, long.class, float.class, double.class)
+		.putAll(char.class, int.class, long.class, float.class, double.class)
+		.putAll(int.class, long.class, float.class, double.class)
+		.putAll(long.class, float.class, double.class)
+		.putAll(float.class, double.class)
+		.build();
+
+	protected final MethodHandles.Lookup lookup;
+	protected final Map<Method, StepInvoker> invokers;
+
+	protected DefaultStepInvokers() {
+		lookup = MethodHandles.lookup();
+		invokers = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void compile(Collection<Martini> martinis) {
+		checkNotNull(martinis, "null Collection");
+		martinis.stream()
+			.flatMap(martini -> martini.getStepIndex().values().stream())
+			.map(implementation -> implementation.getMethod().orElse(null))
+			.filter(Objects::nonNull)
+			.distinct()
+			.forEach(this::get);
+	}
+
+	@Override
+	public StepInvoker get(Method method) {
+		checkNotNull(method, "null Method");
+		StepInvoker invoker = invokers.get(method);
+		return null == invoker ? invokers.computeIfAbsent(method, this::compile) : invoker;
+	}
+
+	protected StepInvoker compile(Method method) {
+		StepInvoker invoker;
+		try {
+			MethodHandle handle = getSpreadHandle(method);
+			invoker = new HandleInvoker(method, handle);
+		}
+		catch (IllegalAccessException | RuntimeException e) {
+			invoker = method::invoke;
+		}
+		return invoker;
+	}
+
+	protected MethodHandle getSpreadHandle(Method method) throws IllegalAccessException {
+		MethodHandle handle = lookup.unreflect(method);
+		int parameterCount = method.getParameterCount();
+		if (Modifier.isStatic(method.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		MethodType generic = MethodType.genericMethodType(parameterCount + 1);
+		return handle.asType(generic).asSpreader(Object[].class, parameterCount);
+	}
+
+	/**
+	 * Checks bean and arguments up front, as Method.invoke does, so that failures of the handle's casts and
+	 * unboxing are never mistaken for exceptions thrown by the step.
+	 */
+	protected static final class HandleInvoker implements StepInvoker {
+
+		private final MethodHandle handle;
+		private final Class<?> declaringClass;
+		private final boolean isStatic;
+		private final Class<?>[] parameterTypes;
+
+		protected HandleInvoker(Method method, MethodHandle handle) {
+			this.handle = handle;
+			this.declaringClass = method.getDeclaringClass();
+			this.isStatic = Modifier.isStatic(method.getModifiers());
+			this.parameterTypes = method.getParameterTypes();
+		}
+
+		@Override
+		public Object invoke(Object bean, Object[] arguments) throws Exception {
+			checkBean(bean);
+			checkArguments(arguments);
+			try {
+				return (Object) handle.invokeExact(bean, arguments);
+			}
+			catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		private void checkBean(Object bean) {
+			if (!isStatic) {
+				checkNotNull(bean, "null bean for instance method of %s", declaringClass.getName());
+				if (!declaringClass.isInstance(bean)) {
+					String message = String.format("%s is not an instance of %s",
+						bean.getClass().getName(), declaringClass.getName());
+					throw new IllegalArgumentException(message);
+				}
+			}
+		}
+
+		private void checkArguments(Object[] arguments) {
+			int count = null == arguments ? 0 : arguments.length;
+			if (count != parameterTypes.length) {
+				String message = String.format("wrong number of arguments: %s, expected %s", count, parameterTypes.length);
+				throw new IllegalArgumentException(message);
+			}
+			for (int i = 0; i < count; i++) {
+				if (!isAssignable(parameterTypes[i], arguments[i])) {
+					String actual = null == arguments[i] ? "null" : arguments[i].getClass().getName();
+					String message = String.format("argument %s: %s cannot be passed as %s", i, actual, parameterTypes[i].getName());
+					throw new IllegalArgumentException(message);
+				}
+			}
+		}
+
+		private static boolean isAssignable(Class<?> parameterType, Object argument) {
+			boolean assignable;
+			if (!parameterType.isPrimitive()) {
+				assignable = null == argument || parameterType.isInstance(argument);
+			}
+			else if (null == argument || !Primitives.isWrapperType(argument.getClass())) {
+				assignable = false;
+			}
+			else {
+				Class<?> unwrapped = Primitives.unwrap(argument.getClass());
+				assignable = parameterType == unwrapped || WIDENING.containsEntry(unwrapped, parameterType);
+			}
+			return assignable;
+		}
+	}
+}
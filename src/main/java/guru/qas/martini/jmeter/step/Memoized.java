@@ -0,0 +1,48 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks an idempotent step, such as a login or token fetch, whose outcome may be reused by later executions
+ * on the same JMeter thread. A memoized step runs once per thread for each distinct set of arguments, or
+ * again once its time to live has elapsed; reused executions are reported as cached sub-results.
+ * <p>
+ * Only successful executions are reused. Any state the step leaves behind, in its bean or elsewhere, is
+ * what later executions rely upon.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Memoized {
+
+	/**
+	 * @return how long a successful execution may be reused; zero or less to reuse it until the thread ends
+	 */
+	long ttl() default 0;
+
+	/**
+	 * @return unit of ttl
+	 */
+	TimeUnit unit() default TimeUnit.SECONDS;
+}
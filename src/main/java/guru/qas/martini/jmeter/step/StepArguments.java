@@ -0,0 +1,43 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import gherkin.ast.Step;
+import guru.qas.martini.Martini;
+
+/**
+ * Suite-scoped store of step arguments captured and converted ahead of execution.
+ */
+public interface StepArguments {
+
+	/**
+	 * Captures and converts, once, the arguments of every step of the given Martinis that can be bound ahead
+	 * of execution.
+	 *
+	 * @param martinis Martinis about to be dispatched
+	 */
+	void bind(Collection<Martini> martinis);
+
+	/**
+	 * @param step Gherkin step of a bound Martini
+	 * @return pre-bound arguments, or empty if the step must be bound when executed
+	 */
+	Optional<Object[]> get(Step step);
+}
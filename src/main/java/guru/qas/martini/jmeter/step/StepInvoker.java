@@ -0,0 +1,34 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+/**
+ * Invokes one step method.
+ */
+@FunctionalInterface
+public interface StepInvoker {
+
+	/**
+	 * Behaves as Method.invoke, wrapping anything the step throws in an InvocationTargetException.
+	 *
+	 * @param bean      step bean, ignored for static methods
+	 * @param arguments step arguments
+	 * @return step method's return value, null if void
+	 * @throws Exception when the step could not be invoked or threw
+	 */
+	Object invoke(Object bean, Object[] arguments) throws Exception;
+}
@@ -0,0 +1,41 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import guru.qas.martini.Martini;
+
+/**
+ * Suite-scoped cache of compiled step invokers.
+ */
+public interface StepInvokers {
+
+	/**
+	 * Compiles invokers for every implemented step of the given Martinis ahead of their first execution.
+	 *
+	 * @param martinis Martinis about to be dispatched
+	 */
+	void compile(Collection<Martini> martinis);
+
+	/**
+	 * @param method step method
+	 * @return invoker for the method, compiled on first request if necessary
+	 */
+	StepInvoker get(Method method);
+}
@@ -0,0 +1,103 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.step;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Outcomes of successful @Memoized step executions for a single JMeter thread, keyed by step method and
+ * arguments. Not thread safe; each JMeter thread keeps its own in its JMeterVariables.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StepMemo {
+
+	protected final Map<Method, Optional<Memoized>> annotations;
+	protected final Map<List<Object>, Entry> entries;
+
+	public StepMemo() {
+		annotations = Maps.newHashMap();
+		entries = Maps.newHashMap();
+	}
+
+	public Optional<Memoized> getMemoized(Method method) {
+		return annotations.computeIfAbsent(method, m -> Optional.ofNullable(m.getAnnotation(Memoized.class)));
+	}
+
+	/**
+	 * @param method    step method
+	 * @param arguments step arguments
+	 * @return outcome of an earlier successful execution that has not yet expired
+	 */
+	public Optional<Entry> get(Method method, Object[] arguments) {
+		List<Object> key = getKey(method, arguments);
+		Entry entry = entries.get(key);
+		if (null != entry && entry.isExpired(System.nanoTime())) {
+			entries.remove(key);
+			entry = null;
+		}
+		return Optional.ofNullable(entry);
+	}
+
+	public void put(Method method, Object[] arguments, Memoized memoized, Object value) {
+		long ttl = memoized.unit().toNanos(memoized.ttl());
+		long expires = ttl > 0 ? System.nanoTime() + ttl : 0;
+		entries.put(getKey(method, arguments), new Entry(value, expires));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	protected List<Object> getKey(Method method, Object[] arguments) {
+		int length = null == arguments ? 0 : arguments.length;
+		List<Object> key = Lists.newArrayListWithCapacity(length + 1);
+		key.add(method);
+		if (length > 0) {
+			key.addAll(Arrays.asList(arguments));
+		}
+		return key;
+	}
+
+	public static final class Entry {
+
+		private final Object value;
+		private final long expires;
+
+		private Entry(Object value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+
+		/**
+		 * @return the step method's return value, possibly null
+		 */
+		public Object getValue() {
+			return value;
+		}
+
+		private boolean isExpired(long now) {
+			return 0 != expires && now - expires >= 0;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.threads;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Creates the threads that run JMeterThreads for MartiniThreadGroup.
+ * <p>
+ * The extension is built for Java 11, so virtual threads are looked up reflectively and used only when the
+ * running JVM provides them (Java 21 and later). Otherwise platform threads are created with the requested
+ * stack size, 0 leaving the JVM default.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MartiniThreadFactory {
+
+	private static final ThreadFactory VIRTUAL = lookUpVirtualThreadFactory();
+
+	private final boolean virtual;
+	private final long stackSize;
+
+	private MartiniThreadFactory(boolean virtual, long stackSize) {
+		this.virtual = virtual;
+		this.stackSize = stackSize;
+	}
+
+	public static boolean isVirtualThreadSupported() {
+		return null != VIRTUAL;
+	}
+
+	/**
+	 * @param virtual   whether virtual threads are requested; ignored when unsupported by the running JVM
+	 * @param stackSize platform thread stack size in bytes, 0 for the JVM default
+	 * @return factory
+	 */
+	public static MartiniThreadFactory getInstance(boolean virtual, long stackSize) {
+		checkArgument(stackSize >= 0, "stack size must not be negative");
+		return new MartiniThreadFactory(virtual && isVirtualThreadSupported(), stackSize);
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public Thread newThread(@Nonnull Runnable runnable, @Nonnull String name) {
+		checkNotNull(runnable, "null Runnable");
+		checkNotNull(name, "null String");
+		Thread thread;
+		if (virtual) {
+			thread = VIRTUAL.newThread(runnable);
+			thread.setName(name);
+		}
+		else {
+			thread = new Thread(null, runnable, name, stackSize);
+		}
+		return thread;
+	}
+
+	private static ThreadFactory lookUpVirtualThreadFactory() {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+			MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+			MethodHandle factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+			Object builder = ofVirtual.invoke();
+			return Optional.ofNullable(factory.invoke(builder)).map(ThreadFactory.class::cast).orElse(null);
+		}
+		catch (Throwable e) {
+			return null;
+		}
+	}
+}
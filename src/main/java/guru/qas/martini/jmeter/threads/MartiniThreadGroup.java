@@ -0,0 +1,268 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.threads;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.engine.TreeCloner;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.threads.ListenerNotifier;
+import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+
+import ch.qos.cal10n.IMessageConveyor;
+import guru.qas.martini.Messages;
+
+import static com.google.common.base.Preconditions.checkState;
+import static guru.qas.martini.jmeter.threads.MartiniThreadGroupMessages.*;
+
+/**
+ * ThreadGroup running each virtual user's JMeterThread on a virtual thread when the running JVM supports
+ * them, so that thousands of users blocked on I/O in step implementations do not each hold a platform
+ * thread. On older JVMs platform threads are used, optionally with a reduced stack size.
+ * <p>
+ * Thread count, ramp-up, loop, scheduler and on-error settings behave as in the standard Thread Group.
+ * Each JMeterThread keeps its own JMeterContext, JMeterVariables and SamplerContext exactly as it would on a
+ * platform thread, so MartiniFilterController and MartiniScopeController work unchanged.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniThreadGroup extends ThreadGroup {
+
+	private static final long serialVersionUID = 2710694227734963437L;
+
+	public static final String VIRTUAL_THREADS = "MartiniThreadGroup.virtual_threads";
+	public static final String STACK_SIZE = "MartiniThreadGroup.stack_size";
+
+	protected static final long WAIT_TO_DIE = JMeterUtils.getPropDefault("jmeterengine.threadstop.wait", 5 * 1000);
+
+	// Per-run.
+	protected transient Map<JMeterThread, Thread> threads;
+	protected transient Object addThreadLock;
+	protected transient MartiniThreadFactory threadFactory;
+	protected transient ListenerNotifier notifier;
+	protected transient ListedHashTree threadGroupTree;
+	protected transient volatile boolean running;
+	protected transient int groupNumber;
+
+	public MartiniThreadGroup() {
+		super();
+		threads = new ConcurrentHashMap<>();
+		addThreadLock = new Object();
+	}
+
+	public boolean isVirtualThreads() {
+		return getPropertyAsBoolean(VIRTUAL_THREADS, true);
+	}
+
+	public void setVirtualThreads(boolean b) {
+		setProperty(VIRTUAL_THREADS, b);
+	}
+
+	/**
+	 * @return platform thread stack size in KB, 0 for the JVM default
+	 */
+	public long getStackSize() {
+		return getPropertyAsLong(STACK_SIZE, 0);
+	}
+
+	public void setStackSize(long kilobytes) {
+		setProperty(STACK_SIZE, kilobytes);
+	}
+
+	@Override
+	public void start(int groupNumber, ListenerNotifier notifier, ListedHashTree tree, StandardJMeterEngine engine) {
+		LocLogger logger = getLogger();
+		this.running = true;
+		this.groupNumber = groupNumber;
+		this.notifier = notifier;
+		this.threadGroupTree = tree;
+
+		boolean virtual = isVirtualThreads();
+		if (virtual && !MartiniThreadFactory.isVirtualThreadSupported()) {
+			logger.warn(VIRTUAL_THREADS_UNAVAILABLE, getName());
+		}
+		threadFactory = MartiniThreadFactory.getInstance(virtual, Math.max(0, getStackSize()) * 1024);
+
+		int threadCount = getNumThreads();
+		int rampUp = getRampUp();
+		logger.info(STARTING, getName(), threadCount, rampUp, threadFactory.isVirtual());
+
+		float perThreadDelay = threadCount > 0 ? (float) TimeUnit.SECONDS.toMillis(rampUp) / threadCount : 0;
+		JMeterContext context = JMeterContextService.getContext();
+		long now = System.currentTimeMillis();
+		for (int threadNumber = 0; running && threadNumber < threadCount; threadNumber++) {
+			startThread(engine, threadNumber, context, now, (int) (threadNumber * perThreadDelay));
+		}
+	}
+
+	protected LocLogger getLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory loggerFactory = new LocLoggerFactory(messageConveyor);
+		return loggerFactory.getLocLogger(this.getClass());
+	}
+
+	protected JMeterThread startThread(
+		StandardJMeterEngine engine,
+		int threadNumber,
+		JMeterContext context,
+		long now,
+		int delay
+	) {
+		JMeterThread jmeterThread = getJMeterThread(engine, threadNumber, context);
+		schedule(jmeterThread, now);
+		jmeterThread.setInitialDelay(delay);
+		Thread thread = threadFactory.newThread(jmeterThread, jmeterThread.getThreadName());
+		threads.put(jmeterThread, thread);
+		thread.start();
+		return jmeterThread;
+	}
+
+	protected JMeterThread getJMeterThread(StandardJMeterEngine engine, int threadNumber, JMeterContext context) {
+		JMeterThread jmeterThread = new JMeterThread(cloneTree(threadGroupTree), this, notifier);
+		jmeterThread.setThreadNum(threadNumber);
+		jmeterThread.setThreadGroup(this);
+		jmeterThread.setInitialContext(context);
+		String distributedPrefix = JMeterUtils.getPropDefault("__jm.D_TG", "");
+		String name = String.format("%s%s%s %s-%s",
+			distributedPrefix, distributedPrefix.isEmpty() ? "" : "-", getName(), groupNumber, threadNumber + 1);
+		jmeterThread.setThreadName(name);
+		jmeterThread.setEngine(engine);
+		jmeterThread.setOnErrorStopTest(getOnErrorStopTest());
+		jmeterThread.setOnErrorStopTestNow(getOnErrorStopTestNow());
+		jmeterThread.setOnErrorStopThread(getOnErrorStopThread());
+		jmeterThread.setOnErrorStartNextLoop(getOnErrorStartNextLoop());
+		return jmeterThread;
+	}
+
+	protected ListedHashTree cloneTree(ListedHashTree tree) {
+		TreeCloner cloner = new TreeCloner(true);
+		tree.traverse(cloner);
+		return cloner.getClonedTree();
+	}
+
+	protected void schedule(JMeterThread jmeterThread, long now) {
+		if (getScheduler()) {
+			long delay = getDelay();
+			long duration = getDuration();
+			checkState(delay >= 0 && duration > 0, Messages.getMessage(INVALID_SCHEDULE, getName()));
+			jmeterThread.setStartTime(TimeUnit.SECONDS.toMillis(delay) + now);
+			jmeterThread.setEndTime(TimeUnit.SECONDS.toMillis(duration) + jmeterThread.getStartTime());
+			jmeterThread.setScheduled(true);
+		}
+	}
+
+	@Override
+	public JMeterThread addNewThread(int delay, StandardJMeterEngine engine) {
+		long now = System.currentTimeMillis();
+		JMeterContext context = JMeterContextService.getContext();
+		int threadNumber;
+		synchronized (addThreadLock) {
+			threadNumber = getNumThreads();
+			setNumThreads(threadNumber + 1);
+		}
+		JMeterThread jmeterThread = startThread(engine, threadNumber, context, now, delay);
+		JMeterContextService.addTotalThreads(1);
+		return jmeterThread;
+	}
+
+	@Override
+	public boolean stopThread(String threadName, boolean now) {
+		boolean stopped = false;
+		for (Map.Entry<JMeterThread, Thread> entry : threads.entrySet()) {
+			JMeterThread jmeterThread = entry.getKey();
+			if (jmeterThread.getThreadName().equals(threadName)) {
+				stop(jmeterThread, entry.getValue(), now);
+				stopped = true;
+				break;
+			}
+		}
+		return stopped;
+	}
+
+	protected void stop(JMeterThread jmeterThread, Thread thread, boolean interrupt) {
+		jmeterThread.stop();
+		jmeterThread.interrupt();
+		if (interrupt && null != thread) {
+			thread.interrupt();
+		}
+	}
+
+	@Override
+	public void threadFinished(JMeterThread thread) {
+		threads.remove(thread);
+	}
+
+	@Override
+	public void tellThreadsToStop(boolean now) {
+		running = false;
+		threads.forEach((jmeterThread, thread) -> stop(jmeterThread, thread, now));
+	}
+
+	@Override
+	public void tellThreadsToStop() {
+		tellThreadsToStop(true);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		threads.keySet().forEach(JMeterThread::stop);
+	}
+
+	@Override
+	public int numberOfActiveThreads() {
+		return threads.size();
+	}
+
+	@Override
+	public boolean verifyThreadsStopped() {
+		boolean stopped = true;
+		for (Thread thread : threads.values()) {
+			stopped = join(thread) && stopped;
+		}
+		return stopped;
+	}
+
+	@Override
+	public void waitThreadsStopped() {
+		for (Thread thread : threads.values()) {
+			while (thread.isAlive()) {
+				join(thread);
+			}
+		}
+	}
+
+	protected boolean join(Thread thread) {
+		if (thread.isAlive()) {
+			try {
+				thread.join(WAIT_TO_DIE);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return !thread.isAlive();
+	}
+}
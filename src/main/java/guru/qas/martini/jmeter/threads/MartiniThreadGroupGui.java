@@ -0,0 +1,131 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.threads;
+
+import java.awt.BorderLayout;
+import java.util.ResourceBundle;
+
+import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.threads.gui.ThreadGroupGui;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.gui.layout.VerticalLayout;
+
+/**
+ * Standard Thread Group GUI with MartiniThreadGroup's thread options.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniThreadGroupGui extends ThreadGroupGui {
+
+	private static final long serialVersionUID = -6325512846185591290L;
+
+	protected transient ResourceBundle resources;
+	protected JCheckBox virtualThreads;
+	protected JTextField stackSize;
+
+	public MartiniThreadGroupGui() {
+		super();
+		add(createThreadsPanel(), BorderLayout.SOUTH);
+	}
+
+	protected ResourceBundle getResources() {
+		if (null == resources) {
+			String baseName = MartiniThreadGroup.class.getName() + "Resources";
+			resources = ResourceBundle.getBundle(baseName, JMeterUtils.getLocale());
+		}
+		return resources;
+	}
+
+	protected JPanel createThreadsPanel() {
+		ResourceBundle bundle = getResources();
+		virtualThreads = new JCheckBox(bundle.getString("virtualThreads.displayName"), true);
+		stackSize = new JTextField("0", 6);
+
+		JPanel stackSizePanel = new JPanel(new BorderLayout(5, 0));
+		stackSizePanel.add(new JLabel(bundle.getString("stackSize.displayName")), BorderLayout.WEST);
+		stackSizePanel.add(stackSize, BorderLayout.CENTER);
+
+		JPanel panel = new JPanel(new VerticalLayout(5, VerticalLayout.BOTH));
+		panel.setBorder(BorderFactory.createTitledBorder(bundle.getString("displayName")));
+		panel.add(virtualThreads);
+		panel.add(stackSizePanel);
+		return panel;
+	}
+
+	@Override
+	public String getLabelResource() {
+		return getClass().getSimpleName();
+	}
+
+	@Override
+	public String getStaticLabel() {
+		return getResources().getString("displayName");
+	}
+
+	@Override
+	public TestElement createTestElement() {
+		MartiniThreadGroup threadGroup = new MartiniThreadGroup();
+		modifyTestElement(threadGroup);
+		return threadGroup;
+	}
+
+	@Override
+	public void modifyTestElement(TestElement element) {
+		super.modifyTestElement(element);
+		if (element instanceof MartiniThreadGroup) {
+			MartiniThreadGroup threadGroup = MartiniThreadGroup.class.cast(element);
+			threadGroup.setVirtualThreads(virtualThreads.isSelected());
+			threadGroup.setStackSize(getStackSize());
+		}
+	}
+
+	protected long getStackSize() {
+		String text = stackSize.getText().trim();
+		long kilobytes;
+		try {
+			kilobytes = text.isEmpty() ? 0 : Long.parseLong(text);
+		}
+		catch (NumberFormatException e) {
+			kilobytes = 0;
+		}
+		return Math.max(0, kilobytes);
+	}
+
+	@Override
+	public void configure(TestElement element) {
+		super.configure(element);
+		if (element instanceof MartiniThreadGroup) {
+			MartiniThreadGroup threadGroup = MartiniThreadGroup.class.cast(element);
+			virtualThreads.setSelected(threadGroup.isVirtualThreads());
+			stackSize.setText(String.valueOf(threadGroup.getStackSize()));
+		}
+	}
+
+	@Override
+	public void clearGui() {
+		super.clearGui();
+		if (null != virtualThreads) {
+			virtualThreads.setSelected(true);
+			stackSize.setText("0");
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.timer;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.testbeans.TestBean;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestStateListener;
+import org.apache.jmeter.timers.Timer;
+import org.slf4j.cal10n.LocLogger;
+import org.slf4j.cal10n.LocLoggerFactory;
+
+import ch.qos.cal10n.IMessageConveyor;
+import guru.qas.martini.Messages;
+import guru.qas.martini.jmeter.SamplerContext;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static guru.qas.martini.jmeter.timer.MartiniArrivalTimerMessages.*;
+
+/**
+ * Open-model pacing: schedules sampler starts at a fixed target arrival rate shared by every thread in
+ * scope, independent of how long earlier samples took.
+ * <p>
+ * Each sample claims the next slot of a shared schedule, waits until that slot's intended start and places
+ * the intended start in SamplerContext. The schedule is anchored when the first sample claims its slot rather
+ * than at test start, so thread group ramp-up and Spring start-up are not replayed as a catch-up burst and
+ * reported as latency. When samplers fall behind, slots are claimed late
+ * and started immediately; MartiniSampler then measures from the intended start so the queueing delay is
+ * reported rather than omitted. Threads in the enclosing thread group act as the execution pool and should
+ * be sized for the expected concurrency.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MartiniArrivalTimer extends AbstractTestElement
+	implements Serializable, Cloneable, Timer, TestBean, TestStateListener {
+
+	private static final long serialVersionUID = 4395208384613591302L;
+
+	// These must match field names exactly.
+	protected static final String PROPERTY_ARRIVAL_RATE = "arrivalRate";
+
+	// Serialized.
+	protected String arrivalRate;
+
+	// Shared.
+	protected transient Schedule schedule;
+
+	@SuppressWarnings("unused") // Accessed via bean introspection.
+	public String getArrivalRate() {
+		return arrivalRate;
+	}
+
+	@SuppressWarnings("unused") // Accessed via bean introspection.
+	public void setArrivalRate(String s) {
+		arrivalRate = null == s ? "" : s.trim();
+	}
+
+	public MartiniArrivalTimer() {
+		super();
+	}
+
+	@Override
+	public Object clone() {
+		Object o = super.clone();
+		MartiniArrivalTimer clone = MartiniArrivalTimer.class.cast(o);
+		clone.schedule = schedule;
+		return clone;
+	}
+
+	@Override
+	public void testStarted() {
+		double rate = getRate();
+		schedule = new Schedule(rate);
+		getLogger().info(STARTING, getName(), rate);
+	}
+
+	@Override
+	public void testStarted(String host) {
+		testStarted();
+	}
+
+	protected double getRate() {
+		String value = null == arrivalRate ? "" : arrivalRate;
+		double rate;
+		try {
+			rate = Double.parseDouble(value);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.getMessage(INVALID_ARRIVAL_RATE, value), e);
+		}
+		checkArgument(rate > 0 && !Double.isInfinite(rate), Messages.getMessage(INVALID_ARRIVAL_RATE, value));
+		return rate;
+	}
+
+	protected LocLogger getLogger() {
+		IMessageConveyor messageConveyor = Messages.getMessageConveyor();
+		LocLoggerFactory loggerFactory = new LocLoggerFactory(messageConveyor);
+		return loggerFactory.getLocLogger(this.getClass());
+	}
+
+	/**
+	 * Claims the next arrival slot.
+	 *
+	 * @return milliseconds until the slot's intended start, 0 when already due
+	 */
+	@Override
+	public long delay() {
+		long intendedNanos = schedule.next();
+		long intendedStart = schedule.toEpochMillis(intendedNanos);
+		SamplerContext.setIntendedStart(intendedStart);
+		long remaining = intendedNanos - System.nanoTime();
+		return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+	}
+
+	@Override
+	public void testEnded() {
+		schedule = null;
+	}
+
+	@Override
+	public void testEnded(String host) {
+		testEnded();
+	}
+
+	/**
+	 * Arrival slots at a fixed interval from a common origin; slot n is due at origin + n * interval. The
+	 * origin is taken when the first slot is claimed.
+	 */
+	protected static final class Schedule {
+
+		private final double intervalNanos;
+		private final AtomicLong slot;
+		private volatile Origin origin;
+
+		protected Schedule(double ratePerSecond) {
+			intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+			slot = new AtomicLong();
+		}
+
+		protected long next() {
+			Origin o = getOrigin();
+			long n = slot.getAndIncrement();
+			return o.nanos + (long) (n * intervalNanos);
+		}
+
+		protected long toEpochMillis(long nanos) {
+			Origin o = getOrigin();
+			return o.millis + TimeUnit.NANOSECONDS.toMillis(nanos - o.nanos);
+		}
+
+		private Origin getOrigin() {
+			Origin o = origin;
+			if (null == o) {
+				synchronized (this) {
+					o = origin;
+					if (null == o) {
+						o = new Origin();
+						origin = o;
+					}
+				}
+			}
+			return o;
+		}
+	}
+
+	private static final class Origin {
+
+		private final long nanos;
+		private final long millis;
+
+		private Origin() {
+			nanos = System.nanoTime();
+			millis = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.timer;
+
+import java.beans.BeanDescriptor;
+import java.beans.PropertyDescriptor;
+import java.util.function.Function;
+
+import org.apache.jmeter.testbeans.BeanInfoSupport;
+
+import guru.qas.martini.ResourceBundleMessageFunction;
+
+import static guru.qas.martini.jmeter.timer.MartiniArrivalTimer.PROPERTY_ARRIVAL_RATE;
+
+@SuppressWarnings("WeakerAccess")
+public class MartiniArrivalTimerBeanInfo extends BeanInfoSupport {
+
+	protected Function<String, String> messageFunction;
+
+	public MartiniArrivalTimerBeanInfo() {
+		super(MartiniArrivalTimer.class);
+		init();
+	}
+
+	protected void init() {
+		setUpMessageFunction();
+		setUpProperties();
+	}
+
+	protected void setUpMessageFunction() {
+		BeanDescriptor descriptor = super.getBeanDescriptor();
+		messageFunction = ResourceBundleMessageFunction.getInstance(descriptor);
+	}
+
+	protected void setUpProperties() {
+		String label = messageFunction.apply("options.label");
+		createPropertyGroup(label, new String[]{PROPERTY_ARRIVAL_RATE});
+		setArrivalRateDescriptor();
+	}
+
+	protected void setArrivalRateDescriptor() {
+		PropertyDescriptor p = property(PROPERTY_ARRIVAL_RATE);
+		p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+		p.setValue(DEFAULT, "${__P(martini.arrival.rate,1)}");
+	}
+}
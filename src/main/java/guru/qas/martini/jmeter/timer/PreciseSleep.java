@@ -0,0 +1,53 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package guru.qas.martini.jmeter.timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sleeps until a System.nanoTime() deadline with sub-millisecond accuracy: the thread parks for all but the
+ * last SPIN_NANOS of the wait, re-checking the clock after each wake-up, then spins to the deadline.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class PreciseSleep {
+
+	protected static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private PreciseSleep() {
+	}
+
+	/**
+	 * @param deadline System.nanoTime() value to sleep until
+	 * @return nanoseconds slept; returns early, with the interrupt flag set, if the thread is interrupted
+	 */
+	public static long until(long deadline) {
+		long start = System.nanoTime();
+		long remaining = deadline - start;
+		Thread thread = Thread.currentThread();
+		while (remaining > 0 && !thread.isInterrupted()) {
+			if (remaining > SPIN_NANOS) {
+				LockSupport.parkNanos(remaining - SPIN_NANOS);
+			}
+			else {
+				Thread.onSpinWait();
+			}
+			remaining = deadline - System.nanoTime();
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+Copyright 2019 Penny Rohr Curich
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package guru.qas.martini.spring.steps;
+
+import guru.qas.martini.Martini;
+import guru.qas.martini.annotation.Given;
+import guru.qas.martini.annotation.Steps;
+import guru.qas.martini.gate.MartiniGate;
+import guru.qas.martini.jmeter.SamplerContext;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Verifies that MartiniFilterController holds each single-permit gate of the executing Martini: another
+ * entry must be refused until the thread moves on to its next Martini.
+ */
+@Steps
+public class GatedSteps {
+
+	public GatedSteps() {
+	}
+
+	@Given("^the scenario's gates are held$")
+	public void givenTheScenariosGatesAreHeld() {
+		Martini martini = SamplerContext.getMartini();
+		for (MartiniGate gate : martini.getGates()) {
+			boolean entered = gate.enter();
+			if (entered) {
+				gate.leave();
+			}
+			checkState(!entered, "gate %s admitted an entry while its Martini was executing", gate.getName());
+		}
+	}
+}
@@ -0,0 +1,9 @@
+Feature: A Gated Feature
+
+	@Gated("TestGate")
+	Scenario: A First Gated Scenario
+		Given the scenario's gates are held
+
+	@Gated("TestGate")
+	Scenario: A Second Gated Scenario
+		Given the scenario's gates are held
\ No newline at end of file